@@ -0,0 +1,43 @@
+package com.example.android.wearable.complications;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-frame work ArcComplication.draw does before touching the canvas: the ranged value
+ * percentage and the label assembled for text arcs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArcMathBenchmark {
+
+    public float minValue = 0f;
+    public float maxValue = 200f;
+    public float value = 72f;
+
+    public CharSequence text = "72";
+    public CharSequence title = "bpm";
+    public CharSequence description = "Heart rate";
+
+    @Benchmark
+    public float percent() {
+        return ArcMath.getPercent(minValue, maxValue, value);
+    }
+
+    @Benchmark
+    public String label() {
+        return ArcMath.buildLabel(text, title, description);
+    }
+
+    @Benchmark
+    public String labelTextOnly() {
+        return ArcMath.buildLabel(text, null, null);
+    }
+}
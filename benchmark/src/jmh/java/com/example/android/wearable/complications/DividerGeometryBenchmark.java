@@ -0,0 +1,28 @@
+package com.example.android.wearable.complications;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trigonometry behind the divider lines of BackgroundDividerDrawable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DividerGeometryBenchmark {
+
+    public int size = 454;
+    private final float[] lines = new float[DividerGeometry.POINTS_LENGTH];
+
+    @Benchmark
+    public float[] computeLines() {
+        DividerGeometry.computeLines(size, size, lines);
+        return lines;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.android.wearable.complications;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the geometry done on every onSurfaceChanged, computed from scratch and from the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FaceLayoutBenchmark {
+
+    @Param({"320", "390", "454"})
+    public int size;
+
+    @Benchmark
+    public FaceLayout compute() {
+        return FaceLayout.create(SlotGeometry.FACE, size, size);
+    }
+
+    @Benchmark
+    public FaceLayout cached() {
+        return FaceLayout.get(SlotGeometry.FACE, size, size);
+    }
+}
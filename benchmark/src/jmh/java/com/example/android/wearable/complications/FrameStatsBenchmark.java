@@ -0,0 +1,31 @@
+package com.example.android.wearable.complications;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead the draw time instrumentation adds to every onDraw.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameStatsBenchmark {
+
+    private final FrameStats frameStats = new FrameStats();
+
+    @Benchmark
+    public void recordFrame() {
+        frameStats.beginFrame(false);
+        frameStats.endStage(FrameStats.STAGE_BACKGROUND);
+        frameStats.endStage(FrameStats.STAGE_CENTER_TEXT);
+        frameStats.endStage(FrameStats.STAGE_COMPLICATIONS);
+        frameStats.endStage(FrameStats.STAGE_RANGED);
+        frameStats.endFrame();
+    }
+}
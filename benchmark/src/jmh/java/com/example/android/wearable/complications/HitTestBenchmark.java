@@ -0,0 +1,47 @@
+package com.example.android.wearable.complications;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tap hit-testing as done by getTappedComplicationId, over a fixed spread of tap points.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitTestBenchmark {
+
+    private static final int SIZE = 454;
+    private static final int TAP_COUNT = 64;
+
+    private static final int ALL_SLOTS = (1 << SlotGeometry.FACE.getSlotCount()) - 1;
+
+    private final int[] tapX = new int[TAP_COUNT];
+    private final int[] tapY = new int[TAP_COUNT];
+    private HitTestMap hitTestMap;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        hitTestMap = FaceLayout.get(SlotGeometry.FACE, SIZE, SIZE).getHitTestMap();
+
+        // A deterministic grid of taps so runs are comparable between releases.
+        for (int i = 0; i < TAP_COUNT; i++) {
+            tapX[i] = (i % 8) * SIZE / 8 + SIZE / 16;
+            tapY[i] = (i / 8) * SIZE / 8 + SIZE / 16;
+        }
+    }
+
+    @Benchmark
+    public int tap() {
+        int i = next++ & (TAP_COUNT - 1);
+        return hitTestMap.getSlotAt(tapX[i], tapY[i], ALL_SLOTS);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.android.wearable.complications;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Starts and stops the synthetic load of {@link SyntheticProviderService}. SYNTHETIC_START takes
+ * the update interval as "interval_ms" and optionally the image size as "image_size"; both are
+ * kept until the next SYNTHETIC_START, and the load survives process restarts until
+ * SYNTHETIC_STOP. Intervals below MIN_INTERVAL_MS are raised to it.
+ *
+ * Only the shell can send these, as the receiver requires the DUMP permission.
+ */
+public class SyntheticProviderReceiver extends BroadcastReceiver {
+
+    static final String ACTION_START = "com.example.android.wearable.complications.SYNTHETIC_START";
+    static final String ACTION_STOP = "com.example.android.wearable.complications.SYNTHETIC_STOP";
+
+    private static final int DEFAULT_INTERVAL_MS = 1000;
+    // Faster requests only queue up behind each other in the provider update service.
+    private static final int MIN_INTERVAL_MS = 100;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        int intervalMs = 0;
+        int imageSize = SyntheticProviderService.DEFAULT_IMAGE_SIZE;
+        if (ACTION_START.equals(intent.getAction())) {
+            intervalMs = Math.max(MIN_INTERVAL_MS, intent.getIntExtra(
+                    SyntheticProviderService.KEY_INTERVAL_MS, DEFAULT_INTERVAL_MS));
+            imageSize = intent.getIntExtra(
+                    SyntheticProviderService.KEY_IMAGE_SIZE, imageSize);
+        } else if (!ACTION_STOP.equals(intent.getAction())) {
+            return;
+        }
+
+        context.getSharedPreferences(SyntheticProviderService.PREFERENCES, Context.MODE_PRIVATE)
+                .edit()
+                .putInt(SyntheticProviderService.KEY_INTERVAL_MS, intervalMs)
+                .putInt(SyntheticProviderService.KEY_IMAGE_SIZE, imageSize)
+                .apply();
+        SyntheticProviderService.start(context, intervalMs);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.android.wearable.complications;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Icon;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationManager;
+import android.support.wearable.complications.ComplicationProviderService;
+import android.support.wearable.complications.ComplicationText;
+import android.support.wearable.complications.ProviderUpdateRequester;
+
+/**
+ * Debug only provider that loads the face the way a busy set of providers would. It serves every
+ * type in NORMAL_COMPLICATION_TYPES and LARGE_COMPLICATION_TYPES:
+ *
+ * - text that changes every second, formatted by the face,
+ * - ranged values that move on every update,
+ * - icons that alternate between two resources, so they are decoded again each time,
+ * - small and large images as freshly generated bitmaps of a configurable size.
+ *
+ * Updates are requested at a configurable interval by SyntheticProviderReceiver, e.g.
+ *
+ * adb shell am broadcast -n com.example.android.wearable.complications/.SyntheticProviderReceiver \
+ *     -a com.example.android.wearable.complications.SYNTHETIC_START --ei interval_ms 100
+ */
+public class SyntheticProviderService extends ComplicationProviderService {
+
+    static final String PREFERENCES = "synthetic_provider";
+    static final String KEY_INTERVAL_MS = "interval_ms";
+    static final String KEY_IMAGE_SIZE = "image_size";
+
+    static final int DEFAULT_IMAGE_SIZE = 400;
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static ProviderUpdateRequester requester;
+    private static int intervalMs;
+    private static final Runnable requestUpdates = new Runnable() {
+        @Override
+        public void run() {
+            requester.requestUpdateAll();
+            handler.postDelayed(this, intervalMs);
+        }
+    };
+
+    // Reference for the time difference text, so it keeps counting across updates.
+    private static final long START_TIME = System.currentTimeMillis();
+
+    private int updateCount;
+
+    // Requests an update of every slot showing this provider every intervalMs milliseconds.
+    static void start(Context context, int intervalMs) {
+        stop();
+        if (intervalMs <= 0) {
+            return;
+        }
+        if (requester == null) {
+            Context appContext = context.getApplicationContext();
+            requester = new ProviderUpdateRequester(appContext,
+                    new ComponentName(appContext, SyntheticProviderService.class));
+        }
+        SyntheticProviderService.intervalMs = intervalMs;
+        handler.post(requestUpdates);
+    }
+
+    static void stop() {
+        handler.removeCallbacks(requestUpdates);
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Picks the load back up after the process has been restarted.
+        if (requester == null) {
+            start(this, getSharedPreferences(PREFERENCES, MODE_PRIVATE)
+                    .getInt(KEY_INTERVAL_MS, 0));
+        }
+    }
+
+    @Override
+    public void onComplicationUpdate(int complicationId, int dataType,
+                                     ComplicationManager complicationManager) {
+        updateCount++;
+
+        ComplicationData data = createData(complicationId, dataType);
+        if (data != null) {
+            complicationManager.updateComplicationData(complicationId, data);
+        } else {
+            complicationManager.noUpdateRequired(complicationId);
+        }
+    }
+
+    private ComplicationData createData(int complicationId, int dataType) {
+        ComplicationText seconds = new ComplicationText.TimeFormatBuilder()
+                .setFormat("mm:ss")
+                .build();
+        ComplicationText title = ComplicationText.plainText("#" + updateCount);
+
+        switch (dataType) {
+            case ComplicationData.TYPE_SHORT_TEXT:
+                return new ComplicationData.Builder(dataType)
+                        .setShortText(seconds)
+                        .setShortTitle(title)
+                        .setIcon(createIcon())
+                        .build();
+            case ComplicationData.TYPE_LONG_TEXT:
+                return new ComplicationData.Builder(dataType)
+                        .setLongText(new ComplicationText.TimeDifferenceBuilder()
+                                .setReferencePeriodStart(START_TIME)
+                                .setReferencePeriodEnd(START_TIME)
+                                .setStyle(ComplicationText.DIFFERENCE_STYLE_SHORT_DUAL_UNIT)
+                                .build())
+                        .setLongTitle(title)
+                        .setSmallImage(createImage(complicationId, getImageSize() / 4))
+                        .build();
+            case ComplicationData.TYPE_RANGED_VALUE:
+                // Sweeps through the range, offset per slot so the arcs do not move in step.
+                return new ComplicationData.Builder(dataType)
+                        .setMinValue(0)
+                        .setMaxValue(100)
+                        .setValue((updateCount * 7 + complicationId * 13) % 101)
+                        .setShortText(seconds)
+                        .setIcon(createIcon())
+                        .build();
+            case ComplicationData.TYPE_ICON:
+                return new ComplicationData.Builder(dataType)
+                        .setIcon(createIcon())
+                        .build();
+            case ComplicationData.TYPE_SMALL_IMAGE:
+                return new ComplicationData.Builder(dataType)
+                        .setSmallImage(createImage(complicationId, getImageSize()))
+                        .setImageStyle(ComplicationData.IMAGE_STYLE_PHOTO)
+                        .build();
+            case ComplicationData.TYPE_LARGE_IMAGE:
+                return new ComplicationData.Builder(dataType)
+                        .setLargeImage(createImage(complicationId, getImageSize()))
+                        .build();
+            default:
+                return null;
+        }
+    }
+
+    private Icon createIcon() {
+        return Icon.createWithResource(this, updateCount % 2 == 0
+                ? R.mipmap.ic_launcher : R.drawable.add_complication);
+    }
+
+    // A solid bitmap whose color changes on every update, so it never compares equal.
+    private Icon createImage(int complicationId, int size) {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        float hue = (updateCount * 37 + complicationId * 29) % 360;
+        new Canvas(bitmap).drawColor(Color.HSVToColor(new float[] {hue, 0.8f, 0.9f}));
+        return Icon.createWithBitmap(bitmap);
+    }
+
+    private int getImageSize() {
+        SharedPreferences preferences = getSharedPreferences(PREFERENCES, MODE_PRIVATE);
+        return Math.max(1, preferences.getInt(KEY_IMAGE_SIZE, DEFAULT_IMAGE_SIZE));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.wearable.complications;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * Pre-rendered ambient frame holding everything but the center text. It is rendered once on
+ * entering ambient mode and again only when the content under it changes, so each ambient update
+ * is a single drawBitmap plus the text. The frame can be drawn at a small offset to protect
+ * burn-in sensitive displays without laying anything out again.
+ */
+public class AmbientFrame {
+
+    // Largest shift in pixels applied on displays with burn-in protection.
+    public static final int BURN_IN_OFFSET_PX = 3;
+
+    // Offsets cycled through once per minute, walking around the original position.
+    private static final int[] OFFSETS_X = {0, 1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] OFFSETS_Y = {0, 0, 1, 1, 1, 0, -1, -1, -1};
+    private static final long OFFSET_PERIOD_MS = 60_000;
+
+    public interface Renderer {
+        // Draws the ambient content and returns the time at which it next changes, or
+        // Long.MAX_VALUE.
+        long drawAmbientContent(Canvas canvas, long currentTimeMillis);
+    }
+
+    private final Renderer renderer;
+    private final Canvas frameCanvas = new Canvas();
+    private Bitmap bitmap;
+
+    private int width;
+    private int height;
+    private boolean dirty = true;
+    private long nextChangeTime = Long.MAX_VALUE;
+
+    public AmbientFrame(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    public void setSize(int width, int height) {
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            release();
+        }
+    }
+
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public void draw(Canvas canvas, long currentTimeMillis, int offsetX, int offsetY) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            dirty = true;
+        }
+
+        if (dirty || currentTimeMillis >= nextChangeTime) {
+            dirty = false;
+            frameCanvas.setBitmap(bitmap);
+            nextChangeTime = renderer.drawAmbientContent(frameCanvas, currentTimeMillis);
+            frameCanvas.setBitmap(null);
+        }
+
+        canvas.drawBitmap(bitmap, offsetX, offsetY, null);
+    }
+
+    // Whether the next draw at the given time renders the content again.
+    public boolean isStale(long currentTimeMillis) {
+        return bitmap == null || dirty || currentTimeMillis >= nextChangeTime;
+    }
+
+    public static int getBurnInOffsetX(long currentTimeMillis) {
+        return OFFSETS_X[getOffsetIndex(currentTimeMillis)] * BURN_IN_OFFSET_PX;
+    }
+
+    public static int getBurnInOffsetY(long currentTimeMillis) {
+        return OFFSETS_Y[getOffsetIndex(currentTimeMillis)] * BURN_IN_OFFSET_PX;
+    }
+
+    private static int getOffsetIndex(long currentTimeMillis) {
+        return (int) ((currentTimeMillis / OFFSET_PERIOD_MS) % OFFSETS_X.length);
+    }
+
+    public void release() {
+        if (bitmap != null) {
+            bitmap.recycle();
+            bitmap = null;
+        }
+        dirty = true;
+    }
+}
@@ -8,44 +8,92 @@ import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.Icon;
 import android.support.wearable.complications.ComplicationData;
-import android.support.wearable.complications.ComplicationText;
 
 public class ArcComplication {
+    // What drawTrack renders for the current data. Two bits per arc when packed.
+    public static final int TRACK_NONE = 0;
+    public static final int TRACK_RANGED = 1;
+    public static final int TRACK_TEXT = 2;
+
     private final int primaryColor;
-    private final float width;
+    private float width;
     private final int secondaryColor;
     private final Context context;
-    private final RectF complicationBounds;
-    private final Rect iconBounds;
-    private final Paint primaryPaint;
-    private final Paint secondaryPaint;
+    private final RectF complicationBounds = new RectF();
+    private final Rect iconBounds = new Rect();
+    // Stroke paints for every render mode, and the ones for the current mode.
+    private final PaintSet primaryPaints;
+    private final PaintSet secondaryPaints;
+    private Paint primaryPaint;
+    private Paint secondaryPaint;
+    private int renderMode;
     private final Paint textPaint;
-    private final Path textPath;
-    private final int startAngle;
+    private final Path textPath = new Path();
+    private final ArcTextLayout textLayout = new ArcTextLayout();
+    private final EvaluatedText label = new EvaluatedText(EvaluatedText.KIND_ARC_LABEL);
+    private final int arcIndex;
+    private int startAngle;
     private final int sweepAngle;
+    private int trackKind = TRACK_NONE;
+
+    // Ranged values ease from the old value to the new one over this time.
+    private static final long TRANSITION_DURATION_MS = 400;
+    private static final long TRANSITION_PENDING = 0;
+    private static final long TRANSITION_NONE = -1;
+
+    // Percentage of the sweep currently drawn, or -1 when the arc does not show a value.
+    private float shownPercent = -1;
+    private float fromPercent;
+    private float toPercent;
+    // Uptime the running transition started at. A pending transition starts on the frame that
+    // first draws it, so it is not cut short when that frame is held back by the coalescer.
+    private long transitionStart = TRANSITION_NONE;
+    private boolean animationsEnabled;
+
+    // The slot as last prepared by the RenderPipeline, and its tinted, pre-bounded icon.
+    private PreparedSlot prepared;
+    private Drawable cachedIcon;
 
 
-    public ArcComplication(Context context, RectF complicationBounds, Rect iconBounds, float width,
-                           int primaryColor, int secondaryColor, int startAngle, int sweepAngle) {
+    public ArcComplication(Context context, int arcIndex, int primaryColor, int secondaryColor) {
         this.context = context;
-        this.complicationBounds = complicationBounds;
-        this.iconBounds = iconBounds;
+        this.arcIndex = arcIndex;
         this.primaryColor = primaryColor;
         this.secondaryColor = secondaryColor;
-        this.startAngle = startAngle;
-        this.sweepAngle = sweepAngle;
-        this.width = width;
+        this.sweepAngle = FaceLayout.ARC_SWEEP_ANGLE;
 
-        primaryPaint = createPaint(primaryColor);
-        secondaryPaint = createPaint(secondaryColor);
+        primaryPaints = PaintSet.forArc(primaryColor, Color.DKGRAY, width);
+        secondaryPaints = PaintSet.forArc(secondaryColor, Color.LTGRAY, width);
+        setRenderMode(renderMode);
         textPaint = createPaint(secondaryColor);
         textPaint.setStrokeWidth(1);
         textPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+    }
+
+    // Moves the arc to its place in the given layout. Called on every surface change, so it
+    // reuses the bounds and path instead of allocating new ones.
+    public void setLayout(FaceLayout layout) {
+        int slotId = ComplicationSlots.getArcId(arcIndex);
+
+        width = layout.getArcWidth();
+        startAngle = layout.getArcStartAngle(slotId);
+        complicationBounds.set(layout.getArcLeft(), layout.getArcTop(),
+                layout.getArcRight(), layout.getArcBottom());
+        iconBounds.set(layout.getLeft(slotId), layout.getTop(slotId),
+                layout.getRight(slotId), layout.getBottom(slotId));
 
-        textPath = new Path();
+        textPath.reset();
         textPath.addArc(complicationBounds, startAngle, sweepAngle);
+        textLayout.invalidate();
+
+        if (cachedIcon != null) {
+            cachedIcon.setBounds(iconBounds);
+        }
+
+        // The stroke width follows the surface.
+        primaryPaints.setArcWidth(width);
+        secondaryPaints.setArcWidth(width);
     }
 
     private Paint createPaint(int color) {
@@ -62,94 +110,163 @@ public class ArcComplication {
         return paint;
     }
 
-    public void draw(Canvas canvas, ComplicationData complicationData) {
-        if(complicationData == null)
+    // Draws the parts of the arc that only change with its data type and the render mode.
+    // These are cached in the static background layer.
+    public void drawTrack(Canvas canvas) {
+        if (trackKind == TRACK_RANGED) {
+            canvas.drawArc(complicationBounds, startAngle, sweepAngle, false, secondaryPaint);
+        } else if (trackKind == TRACK_TEXT) {
+            canvas.drawArc(complicationBounds, startAngle, sweepAngle, false, primaryPaint);
+        }
+    }
+
+    public int getTrackKind() {
+        return trackKind;
+    }
+
+    public void draw(Canvas canvas, long currentTimeMillis) {
+        if (prepared == null || prepared.data == null)
             return;
 
-        if(complicationData.getType() == ComplicationData.TYPE_RANGED_VALUE) {
-            float minValue = complicationData.getMinValue();
-            float maxValue = complicationData.getMaxValue();
-            float currentValue = complicationData.getValue();
+        if (trackKind == TRACK_RANGED) {
+            // Draw it on the canvas. The track underneath comes from the static layer.
+            canvas.drawArc(complicationBounds, startAngle, sweepAngle * shownPercent, false,
+                    primaryPaint);
+        } else {
+            String textToDraw = label.get(context, currentTimeMillis);
+            textLayout.draw(canvas, textToDraw, textPath, -width/2, width/4, textPaint);
+        }
+        drawRangeIcon(canvas);
+    }
+
+    /*
+     * Hash of what draw() shows at the given time. Ranged values only count in steps of one
+     * pixel along the arc, the smallest change that can be seen.
+     */
+    public int getDrawnHash(long currentTimeMillis) {
+        if (prepared == null || prepared.data == null) {
+            return 0;
+        }
 
-            // Translate the current progress to a percentage value between 0 and 1.
-            float percent = 0;
-            float range = Math.abs(maxValue - minValue);
-            if (range > 0) {
-                percent = (currentValue - minValue) / range;
+        int hash;
+        if (trackKind == TRACK_RANGED) {
+            float sweepLength = (float) Math.toRadians(sweepAngle) * complicationBounds.width() / 2;
+            hash = Math.round(shownPercent * sweepLength);
+        } else {
+            String text = label.get(context, currentTimeMillis);
+            hash = text != null ? text.hashCode() : 0;
+        }
+        return hash * 31 + System.identityHashCode(cachedIcon);
+    }
 
-                // We don't want to deal progress values outside 0-100.
-                percent = Math.max(0f, percent);
-                percent = Math.min(1f, percent);
-            }
+    // Evaluates the label again on the next draw.
+    public void invalidateText() {
+        label.invalidate();
+    }
 
-            // Draw it on the canvas.
-            canvas.drawArc(complicationBounds, startAngle, sweepAngle, false, secondaryPaint);
-            canvas.drawArc(complicationBounds, startAngle, sweepAngle * percent, false, primaryPaint);
+    // Takes over a slot prepared off the main thread, so drawing only has to blit and stroke.
+    public void setPrepared(PreparedSlot slot) {
+        prepared = slot;
+        ComplicationData complicationData = slot != null ? slot.data : null;
+
+        if (complicationData == null) {
+            trackKind = TRACK_NONE;
+        } else if (complicationData.getType() == ComplicationData.TYPE_RANGED_VALUE) {
+            trackKind = TRACK_RANGED;
         } else {
-            String textToDraw = "No data";
-            long currentTime = System.nanoTime();
-            ComplicationText complicationText = complicationData.getShortText();
-            if(complicationText != null) {
-                textToDraw = complicationText.getText(context, currentTime).toString();
-            }
-            complicationText = complicationData.getShortTitle();
-            if(complicationText != null) {
-                textToDraw += " " + complicationText.getText(context, currentTime).toString();
-            }
-            complicationText = complicationData.getImageContentDescription();
-            if(complicationText != null) {
-                textToDraw += " " + complicationText.getText(context, currentTime).toString();
+            trackKind = TRACK_TEXT;
+        }
+
+        if (trackKind == TRACK_RANGED) {
+            setPercent(slot.percent);
+        } else {
+            shownPercent = -1;
+            transitionStart = TRANSITION_NONE;
+        }
+
+        if (slot != null) {
+            label.setEvaluated(complicationData, slot.text, slot.textEvaluatedAt,
+                    slot.textNextChangeTime);
+        } else {
+            label.setComplicationData(null);
+        }
+
+        // Unchanged icons are handed over again as the same drawable, already tinted.
+        Drawable icon = slot != null ? slot.icon : null;
+        if (icon != cachedIcon) {
+            cachedIcon = icon;
+            if (cachedIcon != null) {
+                cachedIcon.setTint(primaryPaint.getColor());
+                cachedIcon.setBounds(iconBounds);
             }
+        }
+    }
 
-            canvas.drawArc(complicationBounds, startAngle, sweepAngle, false, primaryPaint);
-            canvas.drawTextOnPath(textToDraw, textPath, -width/2, width/4   , textPaint);
+    private void setPercent(float percent) {
+        if (animationsEnabled && shownPercent >= 0 && shownPercent != percent) {
+            fromPercent = shownPercent;
+            toPercent = percent;
+            transitionStart = TRANSITION_PENDING;
+        } else {
+            shownPercent = percent;
+            toPercent = percent;
+            transitionStart = TRANSITION_NONE;
         }
-        drawRangeIcon(canvas, complicationData);
     }
 
-    private void drawRangeIcon(Canvas canvas, ComplicationData complicationData) {
-        Icon i = null;
-        if (complicationData.getIcon() != null) {
-            i = complicationData.getIcon();
-        } else if (complicationData.getSmallImage() != null) {
-            i = complicationData.getSmallImage();
-        } else if (complicationData.getLargeImage() != null) {
-            i = complicationData.getLargeImage();
-        } else if (complicationData.getBurnInProtectionSmallImage() != null) {
-            i = complicationData.getBurnInProtectionSmallImage();
-        } else if (complicationData.getBurnInProtectionIcon() != null) {
-            i = complicationData.getBurnInProtectionIcon();
-        }
-
-        if (i != null) {
-            i.setTint(primaryPaint.getColor());
-            Drawable icon = i.loadDrawable(context);
-            icon.setBounds(iconBounds);
-            icon.draw(canvas);
+    /*
+     * Moves a running value transition to the given uptime. Returns whether the arc is still
+     * animating and needs another frame.
+     */
+    public boolean advanceTransition(long now) {
+        if (transitionStart == TRANSITION_NONE) {
+            return false;
+        }
+        if (transitionStart == TRANSITION_PENDING) {
+            transitionStart = now;
+        }
+
+        float fraction = (now - transitionStart) / (float) TRANSITION_DURATION_MS;
+        if (fraction >= 1f) {
+            finishTransition();
+            return false;
         }
+        shownPercent = ArcMath.interpolate(fromPercent, toPercent, fraction);
+        return true;
     }
 
-    public void setAmbientMode(boolean ambientMode) {
-        if(ambientMode) {
-            primaryPaint.setAntiAlias(false);
-            primaryPaint.setColor(Color.DKGRAY);
-            secondaryPaint.setAntiAlias(false);
-            secondaryPaint.setColor(Color.LTGRAY);
-        } else {
-            primaryPaint.setAntiAlias(true);
-            primaryPaint.setColor(primaryColor);
-            secondaryPaint.setAntiAlias(true);
-            secondaryPaint.setColor(secondaryColor);
+    // Jumps to the end of a running value transition.
+    public void finishTransition() {
+        if (transitionStart != TRANSITION_NONE) {
+            shownPercent = toPercent;
+            transitionStart = TRANSITION_NONE;
         }
     }
 
-    public void setHollow(boolean hollow) {
-        if(hollow) {
-            primaryPaint.setStrokeWidth(2);
-            secondaryPaint.setStrokeWidth(2);
-        } else {
-            primaryPaint.setStrokeWidth(width);
-            secondaryPaint.setStrokeWidth(width);
+    // Value changes only animate while enabled; disabling settles a running transition.
+    public void setAnimationsEnabled(boolean enabled) {
+        animationsEnabled = enabled;
+        if (!enabled) {
+            finishTransition();
+        }
+    }
+
+    private void drawRangeIcon(Canvas canvas) {
+        if (cachedIcon != null) {
+            cachedIcon.draw(canvas);
+        }
+    }
+
+    // Switches to the paints of the given StaticLayerCache mode.
+    public void setRenderMode(int mode) {
+        renderMode = mode;
+        Paint previous = primaryPaint;
+        primaryPaint = primaryPaints.get(mode);
+        secondaryPaint = secondaryPaints.get(mode);
+
+        if (cachedIcon != null
+                && (previous == null || previous.getColor() != primaryPaint.getColor())) {
+            cachedIcon.setTint(primaryPaint.getColor());
         }
     }
-}
\ No newline at end of file
+}
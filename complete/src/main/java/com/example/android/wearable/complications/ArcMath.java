@@ -0,0 +1,50 @@
+package com.example.android.wearable.complications;
+
+/**
+ * The number crunching behind {@link ArcComplication}, kept free of Android types so it can be
+ * benchmarked on the JVM.
+ */
+public final class ArcMath {
+
+    public static final String NO_DATA = "No data";
+
+    private ArcMath() {
+    }
+
+    // Translates the current progress to a percentage value between 0 and 1.
+    public static float getPercent(float minValue, float maxValue, float currentValue) {
+        float percent = 0;
+        float range = Math.abs(maxValue - minValue);
+        if (range > 0) {
+            percent = (currentValue - minValue) / range;
+
+            // We don't want to deal progress values outside 0-100.
+            percent = Math.max(0f, percent);
+            percent = Math.min(1f, percent);
+        }
+        return percent;
+    }
+
+    // Eases from one percentage to another, decelerating towards the end. The fraction is the
+    // elapsed part of the transition, between 0 and 1.
+    public static float interpolate(float from, float to, float fraction) {
+        float remaining = 1f - fraction;
+        return from + (to - from) * (1f - remaining * remaining);
+    }
+
+    // Joins the pieces of text shown along a non-ranged arc. Any of them may be null.
+    public static String buildLabel(CharSequence text, CharSequence title,
+                                    CharSequence description) {
+        String label = NO_DATA;
+        if (text != null) {
+            label = text.toString();
+        }
+        if (title != null) {
+            label += " " + title;
+        }
+        if (description != null) {
+            label += " " + description;
+        }
+        return label;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.android.wearable.complications;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+
+/**
+ * Cached glyph layout for the text of one {@link ArcComplication}. drawTextOnPath measures the
+ * path and places every glyph on each call; this places the glyphs once per (text, path, text
+ * size) and bakes them into a single Path, so a frame only draws that path. Text longer than the
+ * arc is scaled down to fit instead of running past its end.
+ */
+public class ArcTextLayout {
+
+    private final Path glyphs = new Path();
+    private final Path glyph = new Path();
+    private final Matrix matrix = new Matrix();
+    private final PathMeasure pathMeasure = new PathMeasure();
+    private final float[] position = new float[2];
+    private final float[] tangent = new float[2];
+    private float[] advances = new float[32];
+
+    private String text;
+    private float textSize;
+    private boolean valid;
+
+    // Forgets the layout, e.g. because the path it was placed on has moved.
+    public void invalidate() {
+        valid = false;
+    }
+
+    /*
+     * Draws the text like drawTextOnPath with a centered paint: centered on the middle of the
+     * path, moved hOffset along it and vOffset across it.
+     */
+    public void draw(Canvas canvas, String text, Path path, float hOffset, float vOffset,
+                     Paint paint) {
+        if (!valid || textSize != paint.getTextSize() || !text.equals(this.text)) {
+            layout(text, path, hOffset, vOffset, paint);
+        }
+        canvas.drawPath(glyphs, paint);
+    }
+
+    private void layout(String text, Path path, float hOffset, float vOffset, Paint paint) {
+        this.text = text;
+        textSize = paint.getTextSize();
+        valid = true;
+        glyphs.reset();
+
+        int length = text.length();
+        if (length == 0) {
+            return;
+        }
+        if (advances.length < length) {
+            advances = new float[length];
+        }
+        paint.getTextWidths(text, advances);
+
+        float textWidth = 0;
+        for (int i = 0; i < length; i++) {
+            textWidth += advances[i];
+        }
+
+        pathMeasure.setPath(path, false);
+        float pathLength = pathMeasure.getLength();
+        float available = pathLength - 2 * Math.abs(hOffset);
+        float scale = textWidth > available && available > 0 ? available / textWidth : 1f;
+        float distance = pathLength / 2 + hOffset - textWidth * scale / 2;
+
+        // Glyph outlines are taken relative to their own left edge.
+        Paint.Align align = paint.getTextAlign();
+        paint.setTextAlign(Paint.Align.LEFT);
+
+        int start = 0;
+        while (start < length) {
+            // Surrogate pairs and combining marks report a zero width after their first char,
+            // and are placed as one glyph.
+            int end = start + 1;
+            float advance = advances[start];
+            while (end < length && advances[end] == 0) {
+                end++;
+            }
+
+            float scaledAdvance = advance * scale;
+            if (advance > 0
+                    && pathMeasure.getPosTan(distance + scaledAdvance / 2, position, tangent)) {
+                paint.getTextPath(text, start, end, -advance / 2, 0, glyph);
+
+                matrix.setScale(scale, scale);
+                matrix.postTranslate(0, vOffset);
+                matrix.postRotate((float) Math.toDegrees(Math.atan2(tangent[1], tangent[0])));
+                matrix.postTranslate(position[0], position[1]);
+                glyphs.addPath(glyph, matrix);
+            }
+
+            distance += scaledAdvance;
+            start = end;
+        }
+
+        paint.setTextAlign(align);
+    }
+}
@@ -15,8 +15,6 @@
  */
 package com.example.android.wearable.complications;
 
-import static com.example.android.wearable.complications.Constants.*;
-
 import android.app.Activity;
 import android.content.ComponentName;
 import android.content.Intent;
@@ -33,7 +31,7 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.Switch;
 
-import java.util.concurrent.Executors;
+import java.util.Arrays;
 
 public class ComplicationConfigActivity extends Activity implements View.OnClickListener {
 
@@ -48,29 +46,13 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
     // Required to retrieve complication data from watch face for preview.
     private ProviderInfoRetriever mProviderInfoRetriever;
 
-    private ImageView mRightComplicationBackground;
-    private ImageView mTopRightComplicationBackground;
-    private ImageView mTopRightRangedComplicationBackground;
-    private ImageView mTopComplicationBackground;
-    private ImageView mTopLeftComplicationBackground;
-    private ImageView mTopLeftRangedComplicationBackground;
-    private ImageView mLeftComplicationBackground;
-    private ImageView mBottomComplicationBackground;
-    private ImageView mBottomLeftRangedComplicationBackground;
-    private ImageView mBottomRightRangedComplicationBackground;
-    private ImageView mCenterComplicationBackground;
-
-    private ImageButton mRightComplication;
-    private ImageButton mTopRightComplication;
-    private ImageButton mTopRightRangedComplication;
-    private ImageButton mTopComplication;
-    private ImageButton mTopLeftComplication;
-    private ImageButton mTopLeftRangedComplication;
-    private ImageButton mLeftComplication;
-    private ImageButton mBottomComplication;
-    private ImageButton mBottomLeftRangedComplication;
-    private ImageButton mBottomRightRangedComplication;
-    private ImageButton mCenterComplication;
+    // Providers seen by earlier instances of this screen.
+    private ProviderInfoCache mProviderInfoCache;
+
+    // Preview views indexed by complication id.
+    private final ImageView[] mComplicationBackgrounds =
+            new ImageView[ComplicationSlots.SLOT_COUNT];
+    private final ImageButton[] mComplications = new ImageButton[ComplicationSlots.SLOT_COUNT];
 
     private Drawable mDefaultAddComplicationDrawable;
 
@@ -87,105 +69,31 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
         mWatchFaceComponentName =
                 new ComponentName(getApplicationContext(), ComplicationWatchFaceService.class);
 
-        mRightComplicationBackground = findViewById(R.id.right_complication_background);
-        mRightComplication = findViewById(R.id.right_complication);
-        setUpComplication(mRightComplicationBackground, mRightComplication);
-
-        mTopRightComplicationBackground = findViewById(R.id.top_right_complication_background);
-        mTopRightComplication = findViewById(R.id.top_right_complication);
-        setUpComplication(mTopRightComplicationBackground, mTopRightComplication);
-
-        mTopRightRangedComplicationBackground = findViewById(R.id.top_right_ranged_complication_background);
-        mTopRightRangedComplication = findViewById(R.id.top_right_ranged_complication);
-        setUpComplication(mTopRightRangedComplicationBackground, mTopRightRangedComplication);
-
-        mTopComplicationBackground = findViewById(R.id.top_complication_background);
-        mTopComplication = findViewById(R.id.top_complication);
-        setUpComplication(mTopComplicationBackground, mTopComplication);
-
-        mTopLeftComplicationBackground = findViewById(R.id.top_left_complication_background);
-        mTopLeftComplication = findViewById(R.id.top_left_complication);
-        setUpComplication(mTopLeftComplicationBackground, mTopLeftComplication);
-
-        mTopLeftRangedComplicationBackground = findViewById(R.id.top_left_ranged_complication_background);
-        mTopLeftRangedComplication = findViewById(R.id.top_left_ranged_complication);
-        setUpComplication(mTopLeftRangedComplicationBackground, mTopLeftRangedComplication);
-
-        mLeftComplicationBackground = findViewById(R.id.left_complication_background);
-        mLeftComplication = findViewById(R.id.left_complication);
-        setUpComplication(mLeftComplicationBackground, mLeftComplication);
-
-        mBottomComplicationBackground = findViewById(R.id.bottom_complication_background);
-        mBottomComplication = findViewById(R.id.bottom_complication);
-        setUpComplication(mBottomComplicationBackground, mBottomComplication);
-
-        mBottomRightRangedComplicationBackground = findViewById(R.id.bottom_right_ranged_complication_background);
-        mBottomRightRangedComplication = findViewById(R.id.bottom_right_ranged_complication);
-        setUpComplication(mBottomRightRangedComplicationBackground, mBottomRightRangedComplication);
-
-        mBottomLeftRangedComplicationBackground = findViewById(R.id.bottom_left_ranged_complication_background);
-        mBottomLeftRangedComplication = findViewById(R.id.bottom_left_ranged_complication);
-        setUpComplication(mBottomLeftRangedComplicationBackground, mBottomLeftRangedComplication);
-
-        mCenterComplicationBackground = findViewById(R.id.center_complication_background);
-        mCenterComplication = findViewById(R.id.center_complication);
-        setUpComplication(mCenterComplicationBackground, mCenterComplication);
+        for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
+            mComplicationBackgrounds[i] = findViewById(ComplicationSlots.getBackgroundViewId(i));
+            mComplications[i] = findViewById(ComplicationSlots.getButtonViewId(i));
+            setUpComplication(i, mComplicationBackgrounds[i], mComplications[i]);
+        }
 
-        ComplicationWatchFaceService.Engine e = ComplicationWatchFaceService.getEngine();
+        // The setting applies to every engine, including previews and ones created later.
         Switch mHollowSwitch = findViewById(R.id.hollow_switch);
-        mHollowSwitch.setChecked(e.getHollowMode());
+        mHollowSwitch.setChecked(EngineRegistry.getHollowMode());
         mHollowSwitch.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton compoundButton, boolean b) {
-                ComplicationWatchFaceService.Engine e = ComplicationWatchFaceService.getEngine();
-                e.setHollowMode(b);
+                EngineRegistry.setHollowMode(b);
             }
         });
 
-        // Initialization of code to retrieve active complication data for the watch face.
-        mProviderInfoRetriever =
-                new ProviderInfoRetriever(getApplicationContext(), Executors.newCachedThreadPool());
-        mProviderInfoRetriever.init();
+        mProviderInfoCache = ProviderInfoCache.getInstance();
 
         retrieveInitialComplicationsData();
     }
 
-    // Used by {@link ComplicationConfigActivity} to retrieve id for complication locations and
-    // to check if complication location is supported.
-    static int getComplicationId(
-            ComplicationLocation complicationLocation) {
-        // Add any other supported locations here you would like to support. In our case, we are
-        // only supporting a left and right complication.
-        switch (complicationLocation) {
-            case RIGHT:
-                return RIGHT_COMPLICATION_ID;
-            case TOP_RIGHT:
-                return TOP_RIGHT_COMPLICATION_ID;
-            case TOP_RIGHT_RANGED:
-                return TOP_RIGHT_RANGED_COMPLICATION_ID;
-            case TOP:
-                return TOP_COMPLICATION_ID;
-            case TOP_LEFT:
-                return TOP_LEFT_COMPLICATION_ID;
-            case TOP_LEFT_RANGED:
-                return TOP_LEFT_RANGED_COMPLICATION_ID;
-            case LEFT:
-                return LEFT_COMPLICATION_ID;
-            case BOTTOM:
-                return BOTTOM_COMPLICATION_ID;
-            case BOTTOM_RIGHT_RANGED:
-                return BOTTOM_RIGHT_RANGED_COMPLICATION_ID;
-            case BOTTOM_LEFT_RANGED:
-                return BOTTOM_LEFT_RANGED_COMPLICATION_ID;
-            case CENTER:
-                return CENTER_COMPLICATION_ID;
-            default:
-                return -1;
-        }
-    }
-
-    private void setUpComplication(ImageView complicationBackground, ImageButton complication) {
-        // Sets up left complication preview.
+    private void setUpComplication(int complicationId, ImageView complicationBackground,
+                                   ImageButton complication) {
+        // Sets up the complication preview; the tag maps a click back to its slot.
+        complication.setTag(complicationId);
         complication.setOnClickListener(this);
 
         // Sets default as "Add Complication" icon.
@@ -199,12 +107,39 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
         super.onDestroy();
 
         // Required to release retriever for active complication data.
-        mProviderInfoRetriever.release();
+        if (mProviderInfoRetriever != null) {
+            mProviderInfoRetriever.release();
+        }
     }
 
+    /*
+     * Shows the cached provider of every slot right away, then asks the system for the slots
+     * whose cache entry is missing or older than the TTL.
+     */
     public void retrieveInitialComplicationsData() {
 
-        final int[] complicationIds = COMPLICATION_IDS;
+        int staleCount = 0;
+        int[] staleIds = new int[ComplicationSlots.SLOT_COUNT];
+
+        for (int complicationId : ComplicationSlots.IDS) {
+            if (mProviderInfoCache.contains(complicationId)) {
+                updateComplicationViews(complicationId, mProviderInfoCache.get(complicationId));
+            }
+            if (!mProviderInfoCache.isFresh(complicationId)) {
+                staleIds[staleCount++] = complicationId;
+            }
+        }
+
+        if (staleCount == 0) {
+            return;
+        }
+
+        final int[] complicationIds = Arrays.copyOf(staleIds, staleCount);
+
+        // Initialization of code to retrieve active complication data for the watch face.
+        mProviderInfoRetriever =
+                new ProviderInfoRetriever(getApplicationContext(), mProviderInfoCache.getExecutor());
+        mProviderInfoRetriever.init();
 
         mProviderInfoRetriever.retrieveProviderInfo(
                 new ProviderInfoRetriever.OnProviderInfoReceivedCallback() {
@@ -212,6 +147,7 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
                     public void onProviderInfoReceived(
                             int watchFaceComplicationId,
                             @Nullable ComplicationProviderInfo complicationProviderInfo) {
+                        mProviderInfoCache.put(watchFaceComplicationId, complicationProviderInfo);
                         updateComplicationViews(watchFaceComplicationId, complicationProviderInfo);
                     }
                 },
@@ -221,52 +157,26 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
 
     @Override
     public void onClick(View view) {
-         if (view.equals(mRightComplication)) {
-            launchComplicationHelperActivity(ComplicationLocation.RIGHT);
-         } else if (view.equals(mTopRightComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.TOP_RIGHT);
-         } else if (view.equals(mTopRightRangedComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.TOP_RIGHT_RANGED);
-         } else if (view.equals(mTopComplication)) {
-            launchComplicationHelperActivity(ComplicationLocation.TOP);
-         } else if (view.equals(mTopLeftComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.TOP_LEFT);
-         } else if (view.equals(mTopLeftRangedComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.TOP_LEFT_RANGED);
-         } else if (view.equals(mLeftComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.LEFT);
-         } else if (view.equals(mBottomComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.BOTTOM);
-         } else if (view.equals(mBottomRightRangedComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.BOTTOM_RIGHT_RANGED);
-         } else if (view.equals(mBottomLeftRangedComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.BOTTOM_LEFT_RANGED);
-         } else if (view.equals(mCenterComplication)) {
-             launchComplicationHelperActivity(ComplicationLocation.CENTER);
-         }
+        Object tag = view.getTag();
+        if (tag instanceof Integer) {
+            launchComplicationHelperActivity((Integer) tag);
+        }
     }
 
-    // Verifies the watch face supports the complication location, then launches the helper
-    // class, so user can choose their complication data provider.
-    private void launchComplicationHelperActivity(ComplicationLocation complicationLocation) {
+    // Launches the helper class, so user can choose their complication data provider.
+    private void launchComplicationHelperActivity(int complicationId) {
 
-        mSelectedComplicationId =
-                getComplicationId(complicationLocation);
+        mSelectedComplicationId = complicationId;
 
-        if (mSelectedComplicationId >= 0) {
+        int[] supportedTypes = ComplicationSlots.getSupportedTypes(complicationId);
 
-            int[] supportedTypes =
-                    ComplicationWatchFaceService.getSupportedComplicationTypes(
-                            complicationLocation);
-
-            startActivityForResult(
-                    ComplicationHelperActivity.createProviderChooserHelperIntent(
-                            getApplicationContext(),
-                            mWatchFaceComponentName,
-                            mSelectedComplicationId,
-                            supportedTypes),
-                    ComplicationConfigActivity.COMPLICATION_CONFIG_REQUEST_CODE);
-        }
+        startActivityForResult(
+                ComplicationHelperActivity.createProviderChooserHelperIntent(
+                        getApplicationContext(),
+                        mWatchFaceComponentName,
+                        mSelectedComplicationId,
+                        supportedTypes),
+                ComplicationConfigActivity.COMPLICATION_CONFIG_REQUEST_CODE);
     }
 
     private void updateComplicationView(ComplicationProviderInfo complicationProviderInfo, ImageButton complication, ImageView complicationBackground) {
@@ -286,28 +196,11 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
     public void updateComplicationViews(
             int watchFaceComplicationId, ComplicationProviderInfo complicationProviderInfo) {
 
-        if (watchFaceComplicationId == RIGHT_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mRightComplication, mRightComplicationBackground);
-        } else if (watchFaceComplicationId == TOP_RIGHT_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mTopRightComplication, mTopRightComplicationBackground);
-        } else if (watchFaceComplicationId == TOP_RIGHT_RANGED_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mTopRightRangedComplication, mTopRightRangedComplicationBackground);
-        } else if (watchFaceComplicationId == TOP_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mTopComplication, mTopComplicationBackground);
-        } else if (watchFaceComplicationId == TOP_LEFT_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mTopLeftComplication, mTopLeftComplicationBackground);
-        } else if (watchFaceComplicationId == TOP_LEFT_RANGED_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mTopLeftRangedComplication, mTopLeftRangedComplicationBackground);
-        } else if (watchFaceComplicationId == LEFT_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mLeftComplication, mLeftComplicationBackground);
-        } else if (watchFaceComplicationId == BOTTOM_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mBottomComplication, mBottomComplicationBackground);
-        } else if (watchFaceComplicationId == BOTTOM_LEFT_RANGED_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mBottomLeftRangedComplication, mBottomLeftRangedComplicationBackground);
-        } else if (watchFaceComplicationId == BOTTOM_RIGHT_RANGED_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mBottomRightRangedComplication, mBottomRightRangedComplicationBackground);
-        } else if (watchFaceComplicationId == CENTER_COMPLICATION_ID) {
-            updateComplicationView(complicationProviderInfo, mCenterComplication, mCenterComplicationBackground);
+        if (watchFaceComplicationId >= 0
+                && watchFaceComplicationId < ComplicationSlots.SLOT_COUNT) {
+            updateComplicationView(complicationProviderInfo,
+                    mComplications[watchFaceComplicationId],
+                    mComplicationBackgrounds[watchFaceComplicationId]);
         }
     }
 
@@ -319,6 +212,7 @@ public class ComplicationConfigActivity extends Activity implements View.OnClick
                     data.getParcelableExtra(ProviderChooserIntent.EXTRA_PROVIDER_INFO);
 
             if (mSelectedComplicationId >= 0) {
+                mProviderInfoCache.put(mSelectedComplicationId, complicationProviderInfo);
                 updateComplicationViews(mSelectedComplicationId, complicationProviderInfo);
             }
         }
@@ -0,0 +1,105 @@
+package com.example.android.wearable.complications;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.rendering.ComplicationDrawable;
+
+/**
+ * Cached rendering of a single {@link ComplicationDrawable} slot. The slot is only redrawn into
+ * its bitmap when it has been invalidated, when its time dependent text reaches its next change
+ * time or when it becomes active or inactive. Every other frame just composites the bitmap.
+ */
+public class ComplicationLayer {
+
+    private final Canvas layerCanvas = new Canvas();
+    private Bitmap bitmap;
+
+    private boolean dirty = true;
+    private boolean renderedActive;
+    private long nextChangeTime = Long.MAX_VALUE;
+
+    // Forces a redraw on the next frame, e.g. after a data, bounds or ambient change.
+    public void invalidate() {
+        dirty = true;
+    }
+
+    // Returns whether the slot had to be redrawn, rather than composited from its bitmap.
+    public boolean draw(Canvas canvas, ComplicationDrawable complicationDrawable,
+                        ComplicationData complicationData, long currentTimeMillis) {
+        if (ComplicationTimes.isEmpty(complicationData)) {
+            release();
+            return false;
+        }
+
+        boolean active = complicationData.isActive(currentTimeMillis);
+        boolean redraw = dirty || active != renderedActive || currentTimeMillis >= nextChangeTime;
+        if (redraw) {
+            render(complicationDrawable, complicationData, currentTimeMillis, active);
+        }
+
+        if (renderedActive && bitmap != null) {
+            Rect bounds = complicationDrawable.getBounds();
+            canvas.drawBitmap(bitmap, bounds.left, bounds.top, null);
+        }
+        return redraw;
+    }
+
+    // Whether a draw at the given time would render the slot again rather than composite it.
+    public boolean isStale(ComplicationData complicationData, long currentTimeMillis) {
+        if (ComplicationTimes.isEmpty(complicationData)) {
+            return renderedActive;
+        }
+        return dirty
+                || complicationData.isActive(currentTimeMillis) != renderedActive
+                || currentTimeMillis >= nextChangeTime;
+    }
+
+    private void render(ComplicationDrawable complicationDrawable,
+                        ComplicationData complicationData, long currentTimeMillis, boolean active) {
+        dirty = false;
+        renderedActive = active;
+        nextChangeTime = ComplicationTimes.getNextChangeTime(complicationData, currentTimeMillis);
+
+        // Inactive data draws nothing, so there is no point keeping pixels around for it.
+        if (!active) {
+            return;
+        }
+
+        Rect bounds = complicationDrawable.getBounds();
+        if (bounds.width() <= 0 || bounds.height() <= 0) {
+            return;
+        }
+
+        if (bitmap == null
+                || bitmap.getWidth() != bounds.width()
+                || bitmap.getHeight() != bounds.height()) {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+            bitmap = Bitmap.createBitmap(bounds.width(), bounds.height(), Bitmap.Config.ARGB_8888);
+        } else {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+
+        layerCanvas.setBitmap(bitmap);
+        layerCanvas.save();
+        layerCanvas.translate(-bounds.left, -bounds.top);
+        complicationDrawable.draw(layerCanvas, currentTimeMillis);
+        layerCanvas.restore();
+        layerCanvas.setBitmap(null);
+    }
+
+    // Frees the bitmap; the next draw with data renders from scratch.
+    public void release() {
+        if (bitmap != null) {
+            bitmap.recycle();
+            bitmap = null;
+        }
+        dirty = true;
+        renderedActive = false;
+        nextChangeTime = Long.MAX_VALUE;
+    }
+}
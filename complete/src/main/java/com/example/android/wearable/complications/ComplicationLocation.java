@@ -1,9 +1,8 @@
 package com.example.android.wearable.complications;
 
 /**
- * Used by associated watch face ({@link ComplicationWatchFaceService}) to let this
- * configuration Activity know which complication locations are supported, their ids, and
- * supported complication data types.
+ * Positions on the face a complication slot can occupy. The slots themselves, with their ids,
+ * supported types and renderers, are declared in {@link ComplicationSlots}.
  */
 public enum ComplicationLocation {
     RIGHT,
@@ -17,4 +16,4 @@ public enum ComplicationLocation {
     BOTTOM_RIGHT_RANGED,
     BOTTOM_LEFT_RANGED,
     TOP_LEFT_RANGED
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.example.android.wearable.complications;
+
+import static com.example.android.wearable.complications.Constants.*;
+
+/**
+ * Registry of the watch face's complication slots. The table below declares every slot, with
+ * its location and arc angle in {@link SlotGeometry#FACE} at the same index; everything else
+ * looks slots up through the dense, id-indexed arrays built from them. The complication id of a
+ * slot is its row in the table.
+ */
+public final class ComplicationSlots {
+
+    // How the engine draws a slot.
+    public static final int RENDERER_DRAWABLE = 0;
+    public static final int RENDERER_CENTER_TEXT = 1;
+    public static final int RENDERER_ARC = 2;
+
+    private static final class Slot {
+        final int renderer;
+        final int[] supportedTypes;
+        final int buttonViewId;
+        final int backgroundViewId;
+        final int primaryColor;
+        final int secondaryColor;
+        final long interactiveMinIntervalMs;
+        final long ambientMinIntervalMs;
+
+        Slot(int renderer, int[] supportedTypes, int buttonViewId, int backgroundViewId,
+             int primaryColor, int secondaryColor, long interactiveMinIntervalMs,
+             long ambientMinIntervalMs) {
+            this.renderer = renderer;
+            this.supportedTypes = supportedTypes;
+            this.buttonViewId = buttonViewId;
+            this.backgroundViewId = backgroundViewId;
+            this.primaryColor = primaryColor;
+            this.secondaryColor = secondaryColor;
+            this.interactiveMinIntervalMs = interactiveMinIntervalMs;
+            this.ambientMinIntervalMs = ambientMinIntervalMs;
+        }
+    }
+
+    /*
+     * One row per slot, in complication id order: renderer, supported types, preview button and
+     * background in the config screen, arc colors (arcs only), and the minimum time between
+     * redraws caused by its data in interactive and ambient mode. Where each slot sits is in
+     * SlotGeometry.FACE.
+     */
+    private static final Slot[] SLOTS = {
+            new Slot(RENDERER_DRAWABLE, NORMAL_COMPLICATION_TYPES,
+                    R.id.right_complication, R.id.right_complication_background,
+                    0, 0, 1000, 60_000),
+            new Slot(RENDERER_DRAWABLE, NORMAL_COMPLICATION_TYPES,
+                    R.id.top_right_complication, R.id.top_right_complication_background,
+                    0, 0, 1000, 60_000),
+            new Slot(RENDERER_DRAWABLE, NORMAL_COMPLICATION_TYPES,
+                    R.id.top_complication, R.id.top_complication_background,
+                    0, 0, 1000, 60_000),
+            new Slot(RENDERER_DRAWABLE, NORMAL_COMPLICATION_TYPES,
+                    R.id.top_left_complication, R.id.top_left_complication_background,
+                    0, 0, 1000, 60_000),
+            new Slot(RENDERER_DRAWABLE, NORMAL_COMPLICATION_TYPES,
+                    R.id.left_complication, R.id.left_complication_background,
+                    0, 0, 1000, 60_000),
+            new Slot(RENDERER_DRAWABLE, LARGE_COMPLICATION_TYPES,
+                    R.id.bottom_complication, R.id.bottom_complication_background,
+                    0, 0, 1000, 60_000),
+            // Usually shows the time, so its redraws are never held back.
+            new Slot(RENDERER_CENTER_TEXT, NORMAL_COMPLICATION_TYPES,
+                    R.id.center_complication, R.id.center_complication_background,
+                    0, 0, 0, 0),
+            new Slot(RENDERER_ARC, NORMAL_COMPLICATION_TYPES,
+                    R.id.top_right_ranged_complication,
+                    R.id.top_right_ranged_complication_background,
+                    R.color.purple, R.color.light_purple, 1000, 60_000),
+            new Slot(RENDERER_ARC, NORMAL_COMPLICATION_TYPES,
+                    R.id.bottom_right_ranged_complication,
+                    R.id.bottom_right_ranged_complication_background,
+                    R.color.yellow, R.color.light_yellow, 1000, 60_000),
+            new Slot(RENDERER_ARC, NORMAL_COMPLICATION_TYPES,
+                    R.id.bottom_left_ranged_complication,
+                    R.id.bottom_left_ranged_complication_background,
+                    R.color.red, R.color.light_red, 1000, 60_000),
+            new Slot(RENDERER_ARC, NORMAL_COMPLICATION_TYPES,
+                    R.id.top_left_ranged_complication,
+                    R.id.top_left_ranged_complication_background,
+                    R.color.green, R.color.light_green, 1000, 60_000),
+    };
+
+    public static final int SLOT_COUNT = SLOTS.length;
+
+    // All complication ids, as passed to setActiveComplications and the provider lookups.
+    public static final int[] IDS = new int[SLOT_COUNT];
+
+    private static final int[] RENDERERS = new int[SLOT_COUNT];
+    private static final int[][] SUPPORTED_TYPES = new int[SLOT_COUNT][];
+    private static final int[] BUTTON_VIEW_IDS = new int[SLOT_COUNT];
+    private static final int[] BACKGROUND_VIEW_IDS = new int[SLOT_COUNT];
+    private static final long[] MIN_INTERVALS_MS = new long[SLOT_COUNT * 2];
+    private static final int[] ARC_INDICES = new int[SLOT_COUNT];
+
+    // Arc index -> complication id, and the ids drawn by a ComplicationDrawable.
+    private static final int[] ARC_IDS;
+    private static final int[] DRAWABLE_IDS;
+
+    public static final int ARC_COUNT;
+
+    static {
+        int arcCount = 0;
+        int drawableCount = 0;
+        if (SlotGeometry.FACE.getSlotCount() != SLOT_COUNT) {
+            throw new IllegalStateException("SlotGeometry.FACE does not match the slots");
+        }
+
+        for (int id = 0; id < SLOT_COUNT; id++) {
+            Slot slot = SLOTS[id];
+            IDS[id] = id;
+            if (SlotGeometry.FACE.isArc(id) != (slot.renderer == RENDERER_ARC)) {
+                throw new IllegalStateException("Slot " + id + " needs an arc start angle");
+            }
+            RENDERERS[id] = slot.renderer;
+            SUPPORTED_TYPES[id] = slot.supportedTypes;
+            BUTTON_VIEW_IDS[id] = slot.buttonViewId;
+            BACKGROUND_VIEW_IDS[id] = slot.backgroundViewId;
+            MIN_INTERVALS_MS[id * 2] = slot.interactiveMinIntervalMs;
+            MIN_INTERVALS_MS[id * 2 + 1] = slot.ambientMinIntervalMs;
+            ARC_INDICES[id] = slot.renderer == RENDERER_ARC ? arcCount++ : -1;
+            if (slot.renderer == RENDERER_DRAWABLE) {
+                drawableCount++;
+            }
+        }
+
+        ARC_COUNT = arcCount;
+        ARC_IDS = new int[arcCount];
+        DRAWABLE_IDS = new int[drawableCount];
+        drawableCount = 0;
+        for (int id = 0; id < SLOT_COUNT; id++) {
+            if (ARC_INDICES[id] >= 0) {
+                ARC_IDS[ARC_INDICES[id]] = id;
+            }
+            if (RENDERERS[id] == RENDERER_DRAWABLE) {
+                DRAWABLE_IDS[drawableCount++] = id;
+            }
+        }
+    }
+
+    private ComplicationSlots() {
+    }
+
+    public static ComplicationLocation getLocation(int id) {
+        return SlotGeometry.FACE.getLocation(id);
+    }
+
+    public static int getRenderer(int id) {
+        return RENDERERS[id];
+    }
+
+    public static int[] getSupportedTypes(int id) {
+        return SUPPORTED_TYPES[id];
+    }
+
+    public static int getButtonViewId(int id) {
+        return BUTTON_VIEW_IDS[id];
+    }
+
+    public static int getBackgroundViewId(int id) {
+        return BACKGROUND_VIEW_IDS[id];
+    }
+
+    public static long getMinRedrawIntervalMs(int id, boolean ambient) {
+        return MIN_INTERVALS_MS[id * 2 + (ambient ? 1 : 0)];
+    }
+
+    // Returns the position of the slot among the arcs, or -1 if it is not drawn as an arc.
+    public static int getArcIndex(int id) {
+        return ARC_INDICES[id];
+    }
+
+    public static int getArcId(int arcIndex) {
+        return ARC_IDS[arcIndex];
+    }
+
+    public static int getArcPrimaryColor(int id) {
+        return SLOTS[id].primaryColor;
+    }
+
+    public static int getArcSecondaryColor(int id) {
+        return SLOTS[id].secondaryColor;
+    }
+
+    public static int getDrawableCount() {
+        return DRAWABLE_IDS.length;
+    }
+
+    public static int getDrawableId(int index) {
+        return DRAWABLE_IDS[index];
+    }
+}
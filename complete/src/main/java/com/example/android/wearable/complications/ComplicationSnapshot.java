@@ -0,0 +1,291 @@
+package com.example.android.wearable.complications;
+
+import android.content.Context;
+import android.graphics.drawable.Icon;
+import android.os.Build;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * Last known complication data of every slot and the surface it was laid out for, persisted so
+ * that the first frame after a process restart is complete instead of waiting for every provider
+ * to deliver again.
+ *
+ * Only what the face draws is kept, in a format of its own: the type, ranged values, text as it
+ * read when saved and resource icons by package and id. Tap actions hold binders, and other
+ * icons carry pixels or URIs that are not stable on disk, so they are dropped; restored data is
+ * not tappable until its provider sends a live update, and a slot missing an icon its type
+ * requires is not restored.
+ */
+public class ComplicationSnapshot {
+
+    private static final String TAG = "ComplicationSnapshot";
+    private static final String FILE_NAME = "complication_snapshot";
+    private static final int FORMAT_VERSION = 3;
+
+    // Fields of a slot, in the order they are written.
+    private static final int TEXT_COUNT = 5;
+    private static final int ICON_COUNT = 5;
+
+    private final Context context;
+    private final AtomicFile file;
+
+    // Encoded data per slot, or null.
+    private final byte[][] slots;
+
+    private int layoutWidth;
+    private int layoutHeight;
+
+    public ComplicationSnapshot(Context context, int slotCount) {
+        this.context = context;
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        slots = new byte[slotCount][];
+    }
+
+    /*
+     * Reads the snapshot written by save(). Snapshots from another app version are ignored, as
+     * the resource ids of its icons may have changed.
+     */
+    public void load() {
+        byte[] bytes;
+        try {
+            bytes = file.readFully();
+        } catch (IOException e) {
+            // No snapshot yet.
+            return;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (in.readInt() != FORMAT_VERSION || in.readInt() != BuildConfig.VERSION_CODE) {
+                return;
+            }
+
+            layoutWidth = in.readInt();
+            layoutHeight = in.readInt();
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int slot = in.readInt();
+                byte[] slotBytes = new byte[in.readInt()];
+                in.readFully(slotBytes);
+                if (slot >= 0 && slot < slots.length) {
+                    slots[slot] = slotBytes;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Ignoring unreadable snapshot: " + e);
+            Arrays.fill(slots, null);
+            layoutWidth = 0;
+        }
+    }
+
+    // Returns the restored data for the slot, or null.
+    public ComplicationData getData(int slot) {
+        return slots[slot] != null ? decode(slots[slot]) : null;
+    }
+
+    // Whether live data for a restored slot draws the same as what was restored. Data with
+    // icons the snapshot drops never does.
+    public boolean matches(int slot, ComplicationData complicationData) {
+        return slots[slot] != null && complicationData != null
+                && isPersistable(complicationData.getIcon())
+                && isPersistable(complicationData.getBurnInProtectionIcon())
+                && isPersistable(complicationData.getSmallImage())
+                && isPersistable(complicationData.getBurnInProtectionSmallImage())
+                && isPersistable(complicationData.getLargeImage())
+                && Arrays.equals(slots[slot], encode(context, complicationData));
+    }
+
+    // Returns the layout the snapshot was taken with, or null.
+    public FaceLayout getLayout() {
+        if (layoutWidth <= 0 || layoutHeight <= 0) {
+            return null;
+        }
+        return FaceLayout.get(SlotGeometry.FACE, layoutWidth, layoutHeight);
+    }
+
+    public void setLayout(FaceLayout layout) {
+        layoutWidth = layout.getWidth();
+        layoutHeight = layout.getHeight();
+    }
+
+    /*
+     * Encodes the given data on the calling thread and writes it out on the executor.
+     */
+    public void save(ComplicationData[] complicationData, Executor executor) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = ComplicationTimes.isEmpty(complicationData[i])
+                    ? null : encode(context, complicationData[i]);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(BuildConfig.VERSION_CODE);
+            out.writeInt(layoutWidth);
+            out.writeInt(layoutHeight);
+
+            int count = 0;
+            for (byte[] slot : slots) {
+                if (slot != null) {
+                    count++;
+                }
+            }
+            out.writeInt(count);
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null) {
+                    out.writeInt(i);
+                    out.writeInt(slots[i].length);
+                    out.write(slots[i]);
+                }
+            }
+        } catch (IOException e) {
+            // Writing to memory does not fail.
+            throw new IllegalStateException(e);
+        }
+        final byte[] bytes = buffer.toByteArray();
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                FileOutputStream stream = null;
+                try {
+                    stream = file.startWrite();
+                    stream.write(bytes);
+                    file.finishWrite(stream);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to write snapshot: " + e);
+                    if (stream != null) {
+                        file.failWrite(stream);
+                    }
+                }
+            }
+        });
+    }
+
+    /*
+     * Writes the drawn fields of the data, or returns null if there is none. Text is written as
+     * it reads now, so time dependent text shows the saved time until the provider updates.
+     */
+    static byte[] encode(Context context, ComplicationData complicationData) {
+        if (complicationData == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeInt(complicationData.getType());
+            out.writeFloat(complicationData.getValue());
+            out.writeFloat(complicationData.getMinValue());
+            out.writeFloat(complicationData.getMaxValue());
+            out.writeInt(complicationData.getImageStyle());
+
+            writeText(out, context, complicationData.getShortText(), now);
+            writeText(out, context, complicationData.getShortTitle(), now);
+            writeText(out, context, complicationData.getLongText(), now);
+            writeText(out, context, complicationData.getLongTitle(), now);
+            writeText(out, context, complicationData.getImageContentDescription(), now);
+
+            writeIcon(out, complicationData.getIcon());
+            writeIcon(out, complicationData.getBurnInProtectionIcon());
+            writeIcon(out, complicationData.getSmallImage());
+            writeIcon(out, complicationData.getBurnInProtectionSmallImage());
+            writeIcon(out, complicationData.getLargeImage());
+        } catch (IOException e) {
+            // Text too long for writeUTF.
+            return null;
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void writeText(DataOutputStream out, Context context,
+                                  ComplicationText complicationText, long now)
+            throws IOException {
+        CharSequence text = complicationText != null
+                ? complicationText.getText(context, now) : null;
+        out.writeBoolean(text != null);
+        if (text != null) {
+            out.writeUTF(text.toString());
+        }
+    }
+
+    // Only resource icons are written; other icons are written as absent.
+    private static void writeIcon(DataOutputStream out, Icon icon) throws IOException {
+        boolean written = icon != null && isPersistable(icon);
+        out.writeBoolean(written);
+        if (written) {
+            out.writeUTF(icon.getResPackage());
+            out.writeInt(icon.getResId());
+        }
+    }
+
+    // Whether the icon, if any, can be written by package and resource id.
+    private static boolean isPersistable(Icon icon) {
+        return icon == null || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                && icon.getType() == Icon.TYPE_RESOURCE);
+    }
+
+    private static ComplicationData decode(byte[] bytes) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            int type = in.readInt();
+            float value = in.readFloat();
+            float minValue = in.readFloat();
+            float maxValue = in.readFloat();
+            int imageStyle = in.readInt();
+
+            ComplicationText[] texts = new ComplicationText[TEXT_COUNT];
+            for (int i = 0; i < TEXT_COUNT; i++) {
+                texts[i] = in.readBoolean() ? ComplicationText.plainText(in.readUTF()) : null;
+            }
+            Icon[] icons = new Icon[ICON_COUNT];
+            for (int i = 0; i < ICON_COUNT; i++) {
+                icons[i] = in.readBoolean()
+                        ? Icon.createWithResource(in.readUTF(), in.readInt()) : null;
+            }
+
+            ComplicationData.Builder builder = new ComplicationData.Builder(type);
+            if (type == ComplicationData.TYPE_RANGED_VALUE) {
+                builder.setValue(value).setMinValue(minValue).setMaxValue(maxValue);
+            }
+            if (type == ComplicationData.TYPE_SMALL_IMAGE) {
+                builder.setImageStyle(imageStyle);
+            }
+
+            // Only fields the original data had are set, so they are all valid for its type.
+            if (texts[0] != null) builder.setShortText(texts[0]);
+            if (texts[1] != null) builder.setShortTitle(texts[1]);
+            if (texts[2] != null) builder.setLongText(texts[2]);
+            if (texts[3] != null) builder.setLongTitle(texts[3]);
+            if (texts[4] != null) builder.setImageContentDescription(texts[4]);
+
+            if (icons[0] != null) builder.setIcon(icons[0]);
+            if (icons[1] != null) builder.setBurnInProtectionIcon(icons[1]);
+            if (icons[2] != null) builder.setSmallImage(icons[2]);
+            if (icons[3] != null) builder.setBurnInProtectionSmallImage(icons[3]);
+            if (icons[4] != null) builder.setLargeImage(icons[4]);
+
+            // Throws if an icon the type requires was dropped.
+            return builder.build();
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Dropping unreadable slot: " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.android.wearable.complications;
+
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+
+/**
+ * Helpers for working out when the rendering of a {@link ComplicationData} can next change.
+ */
+public final class ComplicationTimes {
+
+    // Spacing and reach of the probes looking for the next activity change.
+    private static final long ACTIVITY_FIRST_STEP_MS = 1_000;
+    private static final long ACTIVITY_MAX_STEP_MS = 60 * 60_000;
+    private static final long ACTIVITY_HORIZON_MS = 24 * 60 * 60_000;
+
+    private ComplicationTimes() {
+    }
+
+    // Returns the earliest time after now at which any text of the data may render differently,
+    // or Long.MAX_VALUE if none of its text is time dependent.
+    public static long getNextChangeTime(ComplicationData complicationData, long now) {
+        if (complicationData == null) {
+            return Long.MAX_VALUE;
+        }
+
+        long next = Long.MAX_VALUE;
+        next = Math.min(next, getNextChangeTime(complicationData.getShortText(), now));
+        next = Math.min(next, getNextChangeTime(complicationData.getShortTitle(), now));
+        next = Math.min(next, getNextChangeTime(complicationData.getLongText(), now));
+        next = Math.min(next, getNextChangeTime(complicationData.getLongTitle(), now));
+        next = Math.min(next,
+                getNextChangeTime(complicationData.getImageContentDescription(), now));
+        return next;
+    }
+
+    private static long getNextChangeTime(ComplicationText complicationText, long now) {
+        return complicationText != null ? complicationText.getNextChangeTime(now) : Long.MAX_VALUE;
+    }
+
+    /*
+     * Returns the next time after now at which the data becomes active or inactive.
+     * ComplicationData only exposes isActive(), so it is probed at gaps that start at a second
+     * and double up to an hour, over the coming day, and the first change found is narrowed
+     * down to the millisecond. That takes a few dozen calls instead of one per minute, at the
+     * cost of resolution: a window that opens and closes between two probes is missed, so
+     * windows shorter than their distance from now, or than an hour, may not be seen. Data
+     * that stays active returns Long.MAX_VALUE; other data without a change in that day
+     * returns the end of the day, so the search carries on from there.
+     */
+    public static long getNextActivityChange(ComplicationData complicationData, long now) {
+        if (complicationData == null) {
+            return Long.MAX_VALUE;
+        }
+        boolean active = complicationData.isActive(now);
+        if (active && complicationData.isActive(Long.MAX_VALUE)) {
+            return Long.MAX_VALUE;
+        }
+
+        long horizon = now + ACTIVITY_HORIZON_MS;
+        long previous = now;
+        long step = ACTIVITY_FIRST_STEP_MS;
+        while (previous < horizon) {
+            long probe = Math.min(previous + step, horizon);
+            if (complicationData.isActive(probe) != active) {
+                // The change lies in (previous, probe].
+                long low = previous;
+                long high = probe;
+                while (high - low > 1) {
+                    long mid = low + (high - low) / 2;
+                    if (complicationData.isActive(mid) != active) {
+                        high = mid;
+                    } else {
+                        low = mid;
+                    }
+                }
+                return high;
+            }
+            previous = probe;
+            step = Math.min(step * 2, ACTIVITY_MAX_STEP_MS);
+        }
+        return horizon;
+    }
+
+    // Whether the slot has nothing to draw at all.
+    public static boolean isEmpty(ComplicationData complicationData) {
+        return complicationData == null
+                || complicationData.getType() == ComplicationData.TYPE_EMPTY
+                || complicationData.getType() == ComplicationData.TYPE_NOT_CONFIGURED;
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.android.wearable.complications;
 
-import static com.example.android.wearable.complications.ComplicationLocation.*;
 import static com.example.android.wearable.complications.Constants.*;
 
 import android.app.PendingIntent;
@@ -13,47 +12,89 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.support.wearable.complications.ComplicationData;
 import android.support.wearable.complications.ComplicationHelperActivity;
 import android.support.wearable.complications.rendering.ComplicationDrawable;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.SurfaceHolder;
 
 import androidx.core.content.ContextCompat;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.Calendar;
 import java.util.TimeZone;
 
 public class ComplicationWatchFaceService extends CanvasWatchFaceService {
 
     private static final String TAG = "ComplicationWatchFace";
-    private static Engine engine;
-
-    // Used by {@link ComplicationConfigActivity} to retrieve complication types supported by
-    // location.
-    static int[] getSupportedComplicationTypes(
-            ComplicationLocation complicationLocation) {
-        // Add any other supported locations here.
-        if (complicationLocation== BOTTOM)
-            return LARGE_COMPLICATION_TYPES;
-        else
-            return NORMAL_COMPLICATION_TYPES;
 
+    // Engines add themselves to the EngineRegistry while they are alive.
+    @Override
+    public Engine onCreateEngine() {
+        return new Engine();
     }
 
+    /*
+     * Prints draw time statistics for the active engine. Pass "overlay" to toggle the on-screen
+     * debug overlay and "reset" to clear the statistics, e.g.
+     * adb shell dumpsys activity service .ComplicationWatchFaceService overlay
+     * "power" exports the hourly power accounting to files/power_stats.csv.
+     */
     @Override
-    public Engine onCreateEngine() {
-        engine = new Engine();
-        return engine;
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        final Engine current = EngineRegistry.getActive();
+        if (current == null) {
+            writer.println("No engine");
+            return;
+        }
+
+        for (String arg : args) {
+            if ("overlay".equals(arg)) {
+                current.mUpdateTimeHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        current.setDebugOverlay(!current.getDebugOverlay());
+                    }
+                });
+            } else if ("reset".equals(arg)) {
+                current.mUpdateTimeHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        current.frameStats.reset();
+                    }
+                });
+            } else if ("power".equals(arg)) {
+                exportPowerStats(current, writer);
+            }
+        }
+
+        current.dump(writer);
     }
 
-    public static Engine getEngine() {
-        return engine;
+    // Writes the hourly power accounting to files/power_stats.csv for offline analysis.
+    private void exportPowerStats(Engine current, PrintWriter writer) {
+        File file = new File(getFilesDir(), "power_stats.csv");
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            current.powerStats.writeCsv(out);
+        } catch (IOException e) {
+            writer.println("power: cannot write " + file + ": " + e);
+            return;
+        }
+        writer.println("power: wrote " + file);
+        current.powerStats.writeCsv(writer);
     }
 
     public class Engine extends CanvasWatchFaceService.Engine {
@@ -67,14 +108,50 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
         private float centerY;
         private int complicationMargin;
 
+        // Geometry of the current surface, shared with every engine drawing the same size.
+        private FaceLayout faceLayout;
+        private final Rect textBounds = new Rect();
+
         private Paint backgroundPaint;
-        private Paint centerPaint;
-        private Paint bottomPaint;
-        private BackgroundDividerDrawable backgroundDividerDrawable;
+        // Center text paints for every render mode, sized to the surface.
+        private final PaintSet centerPaints = PaintSet.forText(Color.WHITE, 0);
+        private final Paint measurePaint = new Paint();
+        private int renderMode;
+        private final EvaluatedText centerText =
+                new EvaluatedText(EvaluatedText.KIND_SHORT_TEXT);
+        private final BackgroundDividerDrawable backgroundDividerDrawable =
+                new BackgroundDividerDrawable();
+
+        // Background, dividers and arc tracks, rendered once per mode.
+        private final StaticLayerCache staticLayerCache = new StaticLayerCache(
+                new StaticLayerCache.Renderer() {
+                    @Override
+                    public void drawStaticLayer(Canvas canvas) {
+                        Engine.this.drawStaticLayer(canvas);
+                    }
+                });
+
+        // Ambient frame without the center text, rendered once per change of its content.
+        private final AmbientFrame ambientFrame = new AmbientFrame(
+                new AmbientFrame.Renderer() {
+                    @Override
+                    public long drawAmbientContent(Canvas canvas, long currentTimeMillis) {
+                        return Engine.this.drawAmbientContent(canvas, currentTimeMillis);
+                    }
+                });
 
         private boolean isAmbientMode;
         private boolean isHollowMode;
 
+        // Draw time instrumentation, reported by dump() and the optional debug overlay.
+        private final FrameStats frameStats = new FrameStats();
+
+        // Hourly wake-ups, redraw requests and draw time, exported by dump().
+        private final PowerStats powerStats = new PowerStats();
+        private final StringBuilder overlayText = new StringBuilder();
+        private Paint debugPaint;
+        private boolean showDebugOverlay;
+
 
         /*
          * Whether the display supports fewer bits for each color in ambient mode.
@@ -88,11 +165,23 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
          */
         private boolean hasBurnInProtection;
 
+        // The parsed custom_complication_styles, shared by all engines through the registry.
+        private ComplicationDrawable complicationStyle;
+
         /* Maps complication ids to corresponding ComplicationDrawable that renders the
-         * the complication data on the watch face.
+         * the complication data on the watch face. A drawable only exists while its slot holds
+         * data; see getOrCreateDrawable().
          */
         private ComplicationDrawable[] mComplicationDrawables;
 
+        // Cached renderings of the circular slots drawn by mComplicationDrawables.
+        private ComplicationLayer[] mComplicationLayers;
+
+        // Callbacks of the slot drawables, which only hold them weakly.
+        private final Drawable.Callback[] drawableCallbacks =
+                new Drawable.Callback[ComplicationSlots.SLOT_COUNT];
+        private boolean drawingComplications;
+
         // Stores the ranged complication on the edge of the screen
         private ArcComplication[] mRangedComplications;
 
@@ -101,19 +190,64 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
          */
         private ComplicationData[] complicationData;
 
+        // Next time every slot's data becomes active or inactive, for scheduling updates, or
+        // ACTIVITY_CHANGE_UNKNOWN until the timer needs it.
+        private static final long ACTIVITY_CHANGE_UNKNOWN = 0;
+        private final long[] activityChanges = new long[ComplicationSlots.SLOT_COUNT];
+
+        // Bit mask of the slots holding data that can be tapped.
+        private int configuredComplications;
+
+        // Bumped on every data change of a slot and when its images load, for the render
+        // fingerprint.
+        private final int[] dataVersions = new int[ComplicationSlots.SLOT_COUNT];
+
+        // Fingerprint of the render inputs of the last frame drawn, or NO_FINGERPRINT if the
+        // next frame has to be drawn regardless. See invalidateIfChanged().
+        private static final long NO_FINGERPRINT = 0;
+        private long drawnFingerprint = NO_FINGERPRINT;
+
         private final BroadcastReceiver mTimeZoneReceiver =
                 new BroadcastReceiver() {
                     @Override
                     public void onReceive(Context context, Intent intent) {
                         calendar.setTimeZone(TimeZone.getDefault());
-                        invalidate();
+                        invalidateTimeDependentText();
+                        invalidateIfChanged(PowerStats.CAUSE_TIME_ZONE);
                     }
                 };
 
-        // Handler to update the time once a second in interactive mode.
+        // Last known data, restored on creation and saved when the face goes invisible.
+        private ComplicationSnapshot snapshot;
+        private int restoredComplications;
+        private boolean snapshotDirty;
+
+        private final UpdateCoalescer updateCoalescer =
+                new UpdateCoalescer(ComplicationSlots.SLOT_COUNT);
+
+        // Handler that wakes the face up when displayed content is due to change.
         private final Handler mUpdateTimeHandler = new UpdateHandler(this);
 
-        private void setTextSizeForWidth(Paint paint, float desiredWidth) {
+        // Prepares the center text and arc data off the main thread. The slots drawn from
+        // are only swapped at the start of a frame.
+        private RenderPipeline renderPipeline;
+        private PreparedSlot[] preparedSlots = new PreparedSlot[ComplicationSlots.SLOT_COUNT];
+
+        // Drives the ranged value transitions. A frame is only requested while an arc animates.
+        private Choreographer choreographer;
+        private boolean arcsAnimating;
+        private boolean arcFramePosted;
+        private final Choreographer.FrameCallback arcFrameCallback =
+                new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        arcFramePosted = false;
+                        invalidate(PowerStats.CAUSE_ANIMATION);
+                    }
+                };
+
+        private float getTextSizeForWidth(float desiredWidth) {
+            Paint paint = measurePaint;
 
             // Pick a reasonably large value for the test. Larger values produce
             // more accurate results, but may cause problems with hardware
@@ -123,14 +257,12 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
 
             // Get the bounds of the text, using our testTextSize.
             paint.setTextSize(testTextSize);
-            Rect bounds = new Rect();
-            paint.getTextBounds("22:22", 0, "22:22".length(), bounds);
+            paint.getTextBounds("22:22", 0, "22:22".length(), textBounds);
 
             // Calculate the desired size as a proportion of our testTextSize.
-            float desiredTextSize = testTextSize * desiredWidth / bounds.width();
+            float desiredTextSize = testTextSize * desiredWidth / textBounds.width();
 
-            // Set the paint for that size.
-            paint.setTextSize(desiredTextSize);
+            return desiredTextSize;
         }
 
         @Override
@@ -142,27 +274,26 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
                             .setAcceptsTapEvents(true)
                             .build());
 
+            EngineRegistry.register(this);
+            isHollowMode = EngineRegistry.getHollowMode();
+
             calendar = Calendar.getInstance();
+            choreographer = Choreographer.getInstance();
 
             backgroundPaint = new Paint();
             backgroundPaint.setColor(Color.BLACK);
 
-            centerPaint = new Paint();
-            centerPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-            centerPaint.setStrokeWidth(1f);
-            centerPaint.setTextAlign(Paint.Align.CENTER);
-            centerPaint.setColor(Color.WHITE);
-            centerPaint.setAntiAlias(true);
-
-            bottomPaint = new Paint();
-            bottomPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-            bottomPaint.setStrokeWidth(1f);
-            bottomPaint.setTextAlign(Paint.Align.CENTER);
-            bottomPaint.setTextSize(BOTTOM_ROW_ITEM_SIZE);
-            bottomPaint.setColor(Color.WHITE);
-            bottomPaint.setAntiAlias(true);
+            debugPaint = new Paint();
+            debugPaint.setTextAlign(Paint.Align.CENTER);
+            debugPaint.setTextSize(BOTTOM_ROW_ITEM_SIZE / 2f);
+            debugPaint.setColor(Color.GREEN);
+            debugPaint.setAntiAlias(true);
 
             initializeComplications();
+            renderPipeline = new RenderPipeline(getApplicationContext(), mUpdateTimeHandler);
+
+            snapshot = new ComplicationSnapshot(getApplicationContext(), ComplicationSlots.SLOT_COUNT);
+            restoreSnapshot();
         }
 
         public boolean getHollowMode() {
@@ -171,56 +302,143 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
 
         public void setHollowMode(boolean hollow) {
             isHollowMode = hollow;
-            if(hollow) {
-                centerPaint.setStyle(Paint.Style.STROKE);
-                bottomPaint.setStyle(Paint.Style.STROKE);
-                for (ArcComplication mRangedComplication : mRangedComplications) {
-                    mRangedComplication.setHollow(true);
-                }
-            } else {
-                centerPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-                bottomPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-                for (ArcComplication mRangedComplication : mRangedComplications) {
-                    mRangedComplication.setHollow(false);
-                }
-            }
-            invalidate();
+            updateRenderMode();
+            ambientFrame.invalidate();
+            invalidate(PowerStats.CAUSE_MODE);
         }
 
         private void initializeComplications() {
-            complicationData = new ComplicationData[COMPLICATION_IDS.length];
-            mComplicationDrawables = new ComplicationDrawable[COMPLICATION_IDS.length];
-            mRangedComplications = new ArcComplication[RANGE_COMPLICATION_COUNT];
+            complicationData = new ComplicationData[ComplicationSlots.SLOT_COUNT];
+            mComplicationDrawables = new ComplicationDrawable[ComplicationSlots.SLOT_COUNT];
+            mRangedComplications = new ArcComplication[ComplicationSlots.ARC_COUNT];
+            mComplicationLayers = new ComplicationLayer[ComplicationSlots.SLOT_COUNT];
+
+            // Parsing the style XML is the expensive part, so it is done once per process.
+            complicationStyle =
+                    EngineRegistry.getComplicationStyle(ComplicationWatchFaceService.this);
+
+            for (int i = 0; i < ComplicationSlots.getDrawableCount(); i++) {
+                mComplicationLayers[ComplicationSlots.getDrawableId(i)] = new ComplicationLayer();
+            }
 
-            for(int i = 0; i < COMPLICATION_IDS.length; i++) {
-                initializeComplication(i);
+            // The arcs only depend on the surface through their bounds, so they are created once
+            // here and moved into place by onSurfaceChanged.
+            Context context = getApplicationContext();
+            for (int i = 0; i < mRangedComplications.length; i++) {
+                int complicationId = ComplicationSlots.getArcId(i);
+                mRangedComplications[i] = new ArcComplication(context, i,
+                        ContextCompat.getColor(context,
+                                ComplicationSlots.getArcPrimaryColor(complicationId)),
+                        ContextCompat.getColor(context,
+                                ComplicationSlots.getArcSecondaryColor(complicationId)));
             }
 
-            setActiveComplications(COMPLICATION_IDS);
+            setActiveComplications(ComplicationSlots.IDS);
         }
 
-        private void initializeComplication(int complicationId) {
-            ComplicationDrawable complicationDrawable =
-                    (ComplicationDrawable) getDrawable(R.drawable.custom_complication_styles);
-            if (complicationDrawable != null) {
-                complicationDrawable.setContext(getApplicationContext());
-                mComplicationDrawables[complicationId] = complicationDrawable;
+        /*
+         * Returns the drawable of a circular slot, creating it from the shared style when the
+         * slot first receives data. It picks up the current display properties, ambient state
+         * and bounds, since the calls that set them may have happened before it existed.
+         */
+        private ComplicationDrawable getOrCreateDrawable(int complicationId) {
+            ComplicationDrawable complicationDrawable = mComplicationDrawables[complicationId];
+            if (complicationDrawable != null || complicationStyle == null) {
+                return complicationDrawable;
             }
+
+            complicationDrawable = new ComplicationDrawable(complicationStyle);
+            if (drawableCallbacks[complicationId] == null) {
+                drawableCallbacks[complicationId] = createDrawableCallback(complicationId);
+            }
+            complicationDrawable.setCallback(drawableCallbacks[complicationId]);
+            complicationDrawable.setContext(getApplicationContext());
+            complicationDrawable.setLowBitAmbient(hasLowBitAmbient);
+            complicationDrawable.setBurnInProtection(hasBurnInProtection);
+            complicationDrawable.setInAmbientMode(isAmbientMode);
+            if (faceLayout != null) {
+                setDrawableBounds(complicationDrawable, complicationId);
+            }
+            mComplicationDrawables[complicationId] = complicationDrawable;
+            return complicationDrawable;
         }
+
+        /*
+         * ComplicationDrawable loads icons and images asynchronously and calls invalidateSelf()
+         * once they arrive. The cached layer was rendered without them, so it is rendered again,
+         * and the redraw is scheduled like a data update so it is coalesced and rate limited.
+         */
+        private Drawable.Callback createDrawableCallback(final int complicationId) {
+            return new Drawable.Callback() {
+                @Override
+                public void invalidateDrawable(Drawable who) {
+                    // Requests from a released drawable, or from within its own rendering.
+                    if (who != mComplicationDrawables[complicationId] || drawingComplications) {
+                        return;
+                    }
+                    mComplicationLayers[complicationId].invalidate();
+                    dataVersions[complicationId]++;
+                    scheduleDataInvalidate(complicationId);
+                }
+
+                @Override
+                public void scheduleDrawable(Drawable who, Runnable what, long when) {
+                    mUpdateTimeHandler.postAtTime(what, who, when);
+                }
+
+                @Override
+                public void unscheduleDrawable(Drawable who, Runnable what) {
+                    mUpdateTimeHandler.removeCallbacks(what, who);
+                }
+            };
+        }
+
+        // Drops the drawable and cached rendering of a slot that no longer has data to show.
+        private void releaseDrawable(int complicationId) {
+            mComplicationDrawables[complicationId] = null;
+            mComplicationLayers[complicationId].release();
+        }
+
+        private void setDrawableBounds(ComplicationDrawable complicationDrawable,
+                                       int complicationId) {
+            complicationDrawable.setBounds(
+                    faceLayout.getLeft(complicationId),
+                    faceLayout.getTop(complicationId),
+                    faceLayout.getRight(complicationId),
+                    faceLayout.getBottom(complicationId));
+        }
+
         @Override
         public void onDestroy() {
             mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            mUpdateTimeHandler.removeMessages(MSG_INVALIDATE);
+            mUpdateTimeHandler.removeMessages(MSG_PREPARED);
+            EngineRegistry.unregister(this);
+            renderPipeline.quit();
+            cancelArcFrame();
+            saveSnapshot();
+            staticLayerCache.clear();
+            ambientFrame.release();
+            for (int i = 0; i < ComplicationSlots.getDrawableCount(); i++) {
+                mComplicationLayers[ComplicationSlots.getDrawableId(i)].release();
+            }
             super.onDestroy();
         }
 
         @Override
         public void onPropertiesChanged(Bundle properties) {
-            hasLowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
-            hasBurnInProtection = properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false);
+            applyProperties(properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false),
+                    properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false));
+        }
+
+        private void applyProperties(boolean lowBitAmbient, boolean burnInProtection) {
+            hasLowBitAmbient = lowBitAmbient;
+            hasBurnInProtection = burnInProtection;
+            updateRenderMode();
 
             ComplicationDrawable complicationDrawable;
 
-            for (int i = 0; i < COMPLICATION_IDS.length; i++) {
+            for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
                 complicationDrawable = mComplicationDrawables[i];
 
                 if(complicationDrawable != null) {
@@ -228,25 +446,156 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
                     complicationDrawable.setBurnInProtection(hasBurnInProtection);
                 }
             }
+
+            invalidateComplicationLayers();
+            ambientFrame.invalidate();
+            drawnFingerprint = NO_FINGERPRINT;
         }
 
         @Override
         public void onComplicationDataUpdate(
                 int complicationId, ComplicationData complicationData) {
+            Trace.beginSection("WatchFace.onComplicationDataUpdate");
+
+            // The first live update of a restored slot usually repeats what is already drawn.
+            boolean unchanged = false;
+            if ((restoredComplications & (1 << complicationId)) != 0) {
+                restoredComplications &= ~(1 << complicationId);
+                unchanged = snapshot.matches(complicationId, complicationData);
+            }
+            snapshotDirty = true;
+
+            setComplicationData(complicationId, complicationData);
+
+            // Slots the face draws itself are redrawn once their data has been prepared.
+            if (RenderPipeline.isPrepared(complicationId)) {
+                renderPipeline.submit(complicationId, complicationData, !unchanged);
+            } else if (!unchanged) {
+                scheduleDataInvalidate(complicationId);
+            }
+            updateTimer();
+
+            Trace.endSection();
+        }
+
+        private void setComplicationData(int complicationId, ComplicationData complicationData) {
             // Adds/updates active complication data in the array.
             this.complicationData[complicationId] = complicationData;
+            dataVersions[complicationId]++;
+
+            int renderer = ComplicationSlots.getRenderer(complicationId);
+            if (renderer == ComplicationSlots.RENDERER_DRAWABLE) {
+                // Updates correct ComplicationDrawable with updated data.
+                if (ComplicationTimes.isEmpty(complicationData)) {
+                    releaseDrawable(complicationId);
+                } else {
+                    ComplicationDrawable complicationDrawable =
+                            getOrCreateDrawable(complicationId);
+                    if (complicationDrawable != null) {
+                        complicationDrawable.setComplicationData(complicationData);
+                    }
+                    mComplicationLayers[complicationId].invalidate();
+                }
+                // Circular slots are not part of the ambient frame, which keeps its rendering.
+            }
+            // The center text and arcs change with their prepared slots, see applyPreparedSlots.
 
-            // Updates correct ComplicationDrawable with updated data.
-            ComplicationDrawable complicationDrawable =
-                    mComplicationDrawables[complicationId];
-            complicationDrawable.setComplicationData(complicationData);
+            if (ComplicationTimes.isEmpty(complicationData)) {
+                configuredComplications &= ~(1 << complicationId);
+            } else {
+                configuredComplications |= 1 << complicationId;
+            }
 
-            invalidate();
+            // Worked out once the timer is next scheduled, see getNextUpdateTime().
+            activityChanges[complicationId] = ACTIVITY_CHANGE_UNKNOWN;
+        }
+
+        // Fills the slots from the last snapshot so the first frame does not wait for providers.
+        private void restoreSnapshot() {
+            snapshot.load();
+
+            for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
+                ComplicationData restored = snapshot.getData(i);
+                if (restored != null) {
+                    setComplicationData(i, restored);
+                    restoredComplications |= 1 << i;
+                }
+            }
+
+            // Prepared right away, so the first frame has the center text and arcs too.
+            PreparedSlot[] prepared = RenderPipeline.prepareAll(
+                    getApplicationContext(), complicationData, System.currentTimeMillis());
+            renderPipeline.seed(prepared);
+            applyPreparedSlots(prepared);
+
+            // Lays the face out for the surface it had last time, which it usually gets again, so
+            // the first onSurfaceChanged() finds the layout, bounds and paints in place.
+            FaceLayout layout = snapshot.getLayout();
+            if (layout != null) {
+                applySurface(layout.getWidth(), layout.getHeight());
+            }
+        }
+
+        // Called on the main thread once RenderPipeline has prepared a slot's data.
+        void onSlotPrepared(int complicationId, boolean redraw) {
+            if (redraw) {
+                scheduleDataInvalidate(complicationId);
+            }
+        }
+
+        // Switches the center text and arcs over to newly prepared slots.
+        private void applyPreparedSlots(PreparedSlot[] slots) {
+            boolean arcsChanged = false;
+            for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
+                PreparedSlot slot = slots[i];
+                if (slot == preparedSlots[i]) {
+                    continue;
+                }
+
+                int renderer = ComplicationSlots.getRenderer(i);
+                if (renderer == ComplicationSlots.RENDERER_CENTER_TEXT) {
+                    if (slot != null) {
+                        centerText.setEvaluated(slot.data, slot.text, slot.textEvaluatedAt,
+                                slot.textNextChangeTime);
+                    } else {
+                        centerText.setComplicationData(null);
+                    }
+                } else if (renderer == ComplicationSlots.RENDERER_ARC) {
+                    mRangedComplications[ComplicationSlots.getArcIndex(i)].setPrepared(slot);
+                    arcsChanged = true;
+                }
+            }
+            preparedSlots = slots;
+
+            // The center text is drawn on top of the ambient frame; the arcs are in it.
+            if (arcsChanged) {
+                updateTrackKinds();
+                ambientFrame.invalidate();
+            }
+        }
+
+        private void saveSnapshot() {
+            if (snapshotDirty) {
+                snapshotDirty = false;
+                snapshot.save(complicationData, AsyncTask.SERIAL_EXECUTOR);
+            }
+        }
+
+        // Batches updates from several providers into one frame and holds back fast providers.
+        private void scheduleDataInvalidate(int complicationId) {
+            long minIntervalMs =
+                    ComplicationSlots.getMinRedrawIntervalMs(complicationId, isAmbientMode);
+            long due = updateCoalescer.onUpdate(
+                    complicationId, SystemClock.uptimeMillis(), minIntervalMs);
+
+            mUpdateTimeHandler.removeMessages(MSG_INVALIDATE);
+            mUpdateTimeHandler.sendEmptyMessageAtTime(MSG_INVALIDATE, due);
         }
 
         @Override
         public void onTapCommand(int tapType, int x, int y, long eventTime) {
             if (tapType == TAP_TYPE_TAP) {
+                powerStats.recordCause(PowerStats.CAUSE_TAP, System.currentTimeMillis());
                 int tappedComplicationId = getTappedComplicationId(x, y);
                 if (tappedComplicationId != -1) {
                     onComplicationTap(tappedComplicationId);
@@ -258,32 +607,16 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
          * Determines if tap inside a complication area or returns -1.
          */
         private int getTappedComplicationId(int x, int y) {
-            ComplicationData complicationData;
-            ComplicationDrawable complicationDrawable;
-
-            long currentTimeMillis = System.currentTimeMillis();
-
-            for (int i = 0; i < COMPLICATION_IDS.length; i++) {
-                complicationData = this.complicationData[i];
-
-                if ((complicationData != null)
-                        && (complicationData.isActive(currentTimeMillis))
-                        && (complicationData.getType() != ComplicationData.TYPE_NOT_CONFIGURED)
-                        && (complicationData.getType() != ComplicationData.TYPE_EMPTY)) {
-
-                    complicationDrawable = mComplicationDrawables[i];
-                    Rect complicationBoundingRect = complicationDrawable.getBounds();
+            if (faceLayout == null) {
+                return -1;
+            }
 
-                    if (complicationBoundingRect.width() > 0) {
-                        if (complicationBoundingRect.contains(x, y)) {
-                            return i;
-                        }
-                    } else {
-                        Log.e(TAG, "Not a recognized complication id.");
-                    }
-                }
+            int complicationId = faceLayout.getHitTestMap().getSlotAt(x, y, configuredComplications);
+            if (complicationId != -1
+                    && !complicationData[complicationId].isActive(System.currentTimeMillis())) {
+                return -1;
             }
-            return -1;
+            return complicationId;
         }
 
         // Fires PendingIntent associated with complication (if it has one).
@@ -321,46 +654,44 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
         @Override
         public void onTimeTick() {
             super.onTimeTick();
-            invalidate();
+            invalidateIfChanged(PowerStats.CAUSE_TIMER);
         }
 
         @Override
         public void onAmbientModeChanged(boolean inAmbientMode) {
             super.onAmbientModeChanged(inAmbientMode);
 
-            isAmbientMode = inAmbientMode;
-
-            if(isAmbientMode) {
-                if(hasLowBitAmbient) {
-                    centerPaint.setAntiAlias(false);
-                    bottomPaint.setAntiAlias(false);
-                }
-
-                centerPaint.setStyle(Paint.Style.FILL);
-                bottomPaint.setStyle(Paint.Style.FILL);
-
-            } else {
-                if(hasLowBitAmbient) {
-                    centerPaint.setAntiAlias(true);
-                    bottomPaint.setAntiAlias(true);
-                }
+            Trace.beginSection("WatchFace.onAmbientModeChanged");
+            // The system redraws the face after a mode change.
+            powerStats.recordCause(PowerStats.CAUSE_MODE, System.currentTimeMillis());
+            applyAmbientMode(inAmbientMode);
+            Trace.endSection();
+        }
 
-                centerPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-                bottomPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-            }
+        private void applyAmbientMode(boolean inAmbientMode) {
+            isAmbientMode = inAmbientMode;
+            updateRenderMode();
 
             // Update drawable complications' ambient state.
             // Note: ComplicationDrawable handles switching between active/ambient colors, we just
             // have to inform it to enter ambient mode.
             ComplicationDrawable complicationDrawable;
 
-            for (int i = 0; i < COMPLICATION_IDS.length; i++) {
+            for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
                 complicationDrawable = mComplicationDrawables[i];
-                complicationDrawable.setInAmbientMode(isAmbientMode);
+                if (complicationDrawable != null) {
+                    complicationDrawable.setInAmbientMode(isAmbientMode);
+                }
             }
+            invalidateComplicationLayers();
 
-            for (ArcComplication mRangedComplication : mRangedComplications) {
-                mRangedComplication.setAmbientMode(isAmbientMode);
+            updateArcAnimations();
+
+            if (isAmbientMode) {
+                ambientFrame.invalidate();
+            } else {
+                // Not needed until the next time the watch goes ambient.
+                ambientFrame.release();
             }
 
             // Check and trigger whether or not timer should be running (only in active mode).
@@ -371,194 +702,399 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
         public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
             super.onSurfaceChanged(holder, format, width, height);
 
-            Context context = getApplicationContext();
+            Trace.beginSection("WatchFace.onSurfaceChanged");
+            // Usually already laid out for this size by restoreSnapshot().
+            if (faceLayout == null || faceLayout.getWidth() != width
+                    || faceLayout.getHeight() != height) {
+                applySurface(width, height);
+            }
+            Trace.endSection();
+        }
+
+        private void applySurface(int width, int height) {
+            faceLayout = FaceLayout.get(SlotGeometry.FACE, width, height);
+            snapshot.setLayout(faceLayout);
+            snapshotDirty = true;
 
             centerX = width / 2f;
             centerY = height / 2f;
-            backgroundDividerDrawable = new BackgroundDividerDrawable(width, height);
-
-            /* We suggest using at least 1/4 of the screen width for circular (or squared)
-             * complications and 2/3 of the screen width for wide rectangular complications for
-             * better readability */
-
-            int sizeOfComplication = width / 4;
-            int midpointOfScreen = width / 2;
-            centerPaint.setTextSize(width / 8f);
-
-            setTextSizeForWidth(centerPaint, width/4f);
-
-            bottomPaint.setTextSize(sizeOfComplication / 4f);
-            BOTTOM_ROW_ITEM_SIZE = sizeOfComplication / 3;
-            complicationMargin = sizeOfComplication / 18;
-
-            float rangeWidthF = width / 20f;
-            int rangeThickness = width / 20;
-            float rangeOffsetF = rangeWidthF / 2;
-            int rangeOffset = rangeThickness / 2;
-
-            RectF rangeBoundsF = new RectF(rangeOffsetF, rangeOffsetF, width - rangeOffsetF, height - rangeOffsetF);
-
-            int radialMarginOffset = (midpointOfScreen - sizeOfComplication) / 2;
-            int verticalOffset = midpointOfScreen - (sizeOfComplication / 2);
-
-            //region Center bounds and complications
-
-            // Left, Top, Right, Bottom
-            Rect rightBounds = new Rect(
-                    (width - sizeOfComplication),
-                    verticalOffset,
-                    (width) - (int) rangeWidthF,
-                    (verticalOffset + sizeOfComplication));
-            ComplicationDrawable rightComplicationDrawable =
-                    mComplicationDrawables[RIGHT_COMPLICATION_ID];
-            rightComplicationDrawable.setBounds(rightBounds);
-
-            Rect topRightBounds =
-                    // Left, Top, Right, Bottom
-                    new Rect(
-                            (width - radialMarginOffset - sizeOfComplication),
-                            (radialMarginOffset + (int)rangeOffsetF),
-                            (width - radialMarginOffset - (int) rangeOffsetF),
-                            (radialMarginOffset + sizeOfComplication));
-            ComplicationDrawable topRightComplicationDrawable =
-                    mComplicationDrawables[TOP_RIGHT_COMPLICATION_ID];
-            topRightComplicationDrawable.setBounds(topRightBounds);
-
-            Rect topBounds =
-                    // Left, Top, Right, Bottom
-                    new Rect(
-                            (midpointOfScreen - radialMarginOffset),
-                            (0),
-                            (midpointOfScreen + radialMarginOffset),
-                            (sizeOfComplication + radialMarginOffset));
-            ComplicationDrawable topComplicationDrawable =
-                    mComplicationDrawables[TOP_COMPLICATION_ID];
-            topComplicationDrawable.setBounds(topBounds);
-
-            Rect topLeftBounds =
-                    // Left, Top, Right, Bottom
-                    new Rect(
-                            (radialMarginOffset + (int) rangeOffsetF),
-                            (radialMarginOffset + (int) rangeOffsetF),
-                            (radialMarginOffset + sizeOfComplication),
-                            (radialMarginOffset + sizeOfComplication));
-            ComplicationDrawable topLeftComplicationDrawable =
-                    mComplicationDrawables[TOP_LEFT_COMPLICATION_ID];
-            topLeftComplicationDrawable.setBounds(topLeftBounds);
-
-            Rect leftBounds =
-                    // Left, Top, Right, Bottom
-                    new Rect(
-                            (int) rangeWidthF,
-                            verticalOffset,
-                            (sizeOfComplication),
-                            (verticalOffset + sizeOfComplication));
-            ComplicationDrawable leftComplicationDrawable =
-                    mComplicationDrawables[LEFT_COMPLICATION_ID];
-            leftComplicationDrawable.setBounds(leftBounds);
-
-            // Left, Top, Right, Bottom
-            Rect bottomBounds = new Rect(
-                    radialMarginOffset,
-                    leftBounds.bottom,
-                    (width - radialMarginOffset),
-                    leftBounds.bottom + sizeOfComplication);
-            ComplicationDrawable bottomComplicationDrawable =
-                    mComplicationDrawables[BOTTOM_COMPLICATION_ID];
-            bottomComplicationDrawable.setBounds(bottomBounds);
-
-            Rect centerBounds =
-                    // Left, Top, Right, Bottom
-                    new Rect(
-                            leftBounds.right,
-                            topBounds.bottom,
-                            rightBounds.left,
-                            bottomBounds.top);
-            ComplicationDrawable centerComplicationDrawable =
-                    mComplicationDrawables[CENTER_COMPLICATION_ID];
-            centerComplicationDrawable.setBounds(centerBounds);
-
-            //endregion
-
-            //region Arc bounds and complications
-
-            Rect topRightRangedBounds =
-                    // Left, Top, Right, Bottom
-                    new Rect((int) rangeBoundsF.centerX() - rangeOffset,
-                            0,
-                            (int) rangeBoundsF.centerX() + rangeOffset,
-                            rangeThickness);
-
-            Rect topLeftRangedBounds = new Rect((int) rangeBoundsF.left - rangeOffset,
-                    (int) rangeBoundsF.centerY() - rangeOffset,
-                    (int) rangeBoundsF.left + rangeOffset,
-                    (int) rangeBoundsF.centerY() + rangeOffset);
-
-            Rect bottomRightRangedBounds = new Rect((int) rangeBoundsF.right - rangeOffset,
-                    (int) rangeBoundsF.centerY() - rangeOffset,
-                    (int) rangeBoundsF.right + rangeOffset,
-                    (int) rangeBoundsF.centerY() + rangeOffset);
-
-            Rect bottomLeftRangedBounds = new Rect((int) rangeBoundsF.centerX() - rangeOffset,
-                    (int) rangeBoundsF.bottom - rangeOffset,
-                    (int) rangeBoundsF.centerX() + rangeOffset,
-                    (int) rangeBoundsF.bottom + rangeOffset);
-
-
-            //Order matters when we add the complication in the array because we iterate in a clockwise direction
-            ArcComplication topRightRanged = new ArcComplication(context, rangeBoundsF, topRightRangedBounds, rangeWidthF,
-                    ContextCompat.getColor(context, R.color.purple), ContextCompat.getColor(context, R.color.light_purple),
-                    280, 70);
-            mRangedComplications[0] = topRightRanged;
-
-            ArcComplication bottomRightRanged = new ArcComplication(context, rangeBoundsF, bottomRightRangedBounds, rangeWidthF,
-                    ContextCompat.getColor(context, R.color.yellow), ContextCompat.getColor(context, R.color.light_yellow),
-                    10, 70);
-            mRangedComplications[1] = bottomRightRanged;
-
-            ArcComplication bottomLeftRanged = new ArcComplication(context, rangeBoundsF, bottomLeftRangedBounds, rangeWidthF,
-                    ContextCompat.getColor(context, R.color.red), ContextCompat.getColor(context, R.color.light_red),
-                    100, 70);
-            mRangedComplications[2] = bottomLeftRanged;
-
-            ArcComplication topLeftRanged = new ArcComplication(context, rangeBoundsF, topLeftRangedBounds, rangeWidthF,
-                    ContextCompat.getColor(context, R.color.green), ContextCompat.getColor(context, R.color.light_green),
-                    190, 70);
-            mRangedComplications[3] = topLeftRanged;
-
-            //endregion
+            backgroundDividerDrawable.setLayout(faceLayout);
+            staticLayerCache.setSize(width, height);
+            ambientFrame.setSize(width, height);
+
+            centerPaints.setTextSize(getTextSizeForWidth(faceLayout.getCenterTextWidth()));
+
+            BOTTOM_ROW_ITEM_SIZE = faceLayout.getComplicationSize() / 3;
+            complicationMargin = faceLayout.getComplicationMargin();
+
+            for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
+                if (mComplicationDrawables[i] != null) {
+                    setDrawableBounds(mComplicationDrawables[i], i);
+                }
+            }
+
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                mRangedComplication.setLayout(faceLayout);
+            }
+
+            // The arc bounds may have moved even if the size did not.
+            staticLayerCache.clear();
+            invalidateComplicationLayers();
+            ambientFrame.invalidate();
+            drawnFingerprint = NO_FINGERPRINT;
         }
 
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
+            Trace.beginSection("WatchFace.onDraw");
+            Tracing.beginFrame();
             long now = System.currentTimeMillis();
+            PreparedSlot[] prepared = renderPipeline.take();
+            if (prepared != null) {
+                applyPreparedSlots(prepared);
+            }
+            long frameNanos = drawFrame(canvas, now);
+            powerStats.recordFrame(isAmbientMode, frameNanos, now);
+            drawnFingerprint = computeRenderFingerprint(now);
+
+            if (arcsAnimating) {
+                // A transition that makes frames miss their budget is settled right away rather
+                // than dragged over slow frames. One more frame draws the final value.
+                if (frameNanos > FrameStats.FRAME_BUDGET_NANOS) {
+                    for (ArcComplication mRangedComplication : mRangedComplications) {
+                        mRangedComplication.finishTransition();
+                    }
+                }
+                postArcFrame();
+            }
+
+            if (updateCoalescer.hasPendingUpdates()) {
+                updateCoalescer.onFrameDrawn(SystemClock.uptimeMillis());
+                mUpdateTimeHandler.removeMessages(MSG_INVALIDATE);
+            }
+
+            if (showDebugOverlay) {
+                drawDebugOverlay(canvas);
+            }
+            Trace.endSection();
+        }
+
+        // Draws the face for the current mode and returns the time it took.
+        private long drawFrame(Canvas canvas, long now) {
             calendar.setTimeInMillis(now);
 
-            drawBackground(canvas);
+            frameStats.beginFrame(isAmbientMode);
+
+            if (isAmbientMode) {
+                drawAmbient(canvas, now);
+            } else {
+                drawInteractive(canvas, now);
+            }
+
+            return frameStats.endFrame();
+        }
+
+        private void drawInteractive(Canvas canvas, long now) {
+            Trace.beginSection("WatchFace.background");
+            staticLayerCache.draw(canvas, renderMode);
+            frameStats.endStage(FrameStats.STAGE_BACKGROUND);
+            Trace.endSection();
+
+            Trace.beginSection("WatchFace.centerText");
+            drawCenterText(canvas, now, 0, 0);
+            frameStats.endStage(FrameStats.STAGE_CENTER_TEXT);
+            Trace.endSection();
+
+            Trace.beginSection("WatchFace.complications");
+            drawComplications(canvas, now);
+            frameStats.endStage(FrameStats.STAGE_COMPLICATIONS);
+            Trace.endSection();
+
+            arcsAnimating = advanceArcTransitions(SystemClock.uptimeMillis());
+            drawRangedComplications(canvas, now);
+            frameStats.endStage(FrameStats.STAGE_RANGED);
+        }
+
+        private boolean advanceArcTransitions(long now) {
+            boolean animating = false;
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                animating |= mRangedComplication.advanceTransition(now);
+            }
+            return animating;
+        }
+
+        private void postArcFrame() {
+            if (!arcFramePosted) {
+                arcFramePosted = true;
+                choreographer.postFrameCallback(arcFrameCallback);
+            }
+        }
+
+        private void cancelArcFrame() {
+            arcsAnimating = false;
+            if (arcFramePosted) {
+                arcFramePosted = false;
+                choreographer.removeFrameCallback(arcFrameCallback);
+            }
+        }
+
+        // Ranged values only animate while the face is visible and interactive.
+        private void updateArcAnimations() {
+            boolean enabled = isVisible() && !isAmbientMode;
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                mRangedComplication.setAnimationsEnabled(enabled);
+            }
+            if (!enabled) {
+                cancelArcFrame();
+            }
+        }
+
+        /*
+         * Everything but the center text comes from the pre-rendered ambient frame, so a minute
+         * tick costs one drawBitmap and one drawText. Displays with burn-in protection get the
+         * whole frame shifted by a few pixels every minute.
+         */
+        private void drawAmbient(Canvas canvas, long now) {
+            int offsetX = 0;
+            int offsetY = 0;
+            if (hasBurnInProtection) {
+                offsetX = AmbientFrame.getBurnInOffsetX(now);
+                offsetY = AmbientFrame.getBurnInOffsetY(now);
+                if (offsetX != 0 || offsetY != 0) {
+                    canvas.drawColor(Color.BLACK);
+                }
+            }
+
+            Trace.beginSection("WatchFace.background");
+            ambientFrame.draw(canvas, now, offsetX, offsetY);
+            frameStats.endStage(FrameStats.STAGE_BACKGROUND);
+            Trace.endSection();
+
+            Trace.beginSection("WatchFace.centerText");
+            drawCenterText(canvas, now, offsetX, offsetY);
+            frameStats.endStage(FrameStats.STAGE_CENTER_TEXT);
+            Trace.endSection();
+            frameStats.endStage(FrameStats.STAGE_COMPLICATIONS);
+            frameStats.endStage(FrameStats.STAGE_RANGED);
+        }
+
+        // Renders the unchanging part of the ambient frame.
+        private long drawAmbientContent(Canvas canvas, long now) {
+            staticLayerCache.draw(canvas, renderMode);
+            drawRangedComplications(canvas, now);
+
+            long next = Long.MAX_VALUE;
+            for (int i = 0; i < ComplicationSlots.ARC_COUNT; i++) {
+                next = Math.min(next, ComplicationTimes.getNextChangeTime(
+                        complicationData[ComplicationSlots.getArcId(i)], now));
+            }
+            return next;
+        }
+
+        private void drawCenterText(Canvas canvas, long now, int offsetX, int offsetY) {
+            String text = centerText.get(getApplicationContext(), now);
+            if (text != null) {
+                canvas.drawText(text, centerX + offsetX, centerY + complicationMargin + offsetY,
+                        centerPaints.get(renderMode));
+            }
+        }
+
+        private void drawRangedComplications(Canvas canvas, long now) {
+            Trace.beginSection("WatchFace.ranged");
+            for (int i = 0; i < mRangedComplications.length; i++) {
+                mRangedComplications[i].draw(canvas, now);
+            }
+            Trace.endSection();
+        }
+
+        private void drawDebugOverlay(Canvas canvas) {
+            overlayText.setLength(0);
+            frameStats.appendSummary(overlayText,
+                    isAmbientMode ? FrameStats.MODE_AMBIENT : FrameStats.MODE_INTERACTIVE);
+            canvas.drawText(overlayText, 0, overlayText.length(),
+                    centerX, centerY - complicationMargin * 4, debugPaint);
+        }
+
+        // Counts the redraw request against its cause before asking for it.
+        void invalidate(int cause) {
+            powerStats.recordCause(cause, System.currentTimeMillis());
+            invalidate();
+        }
+
+        /*
+         * Requests a redraw unless the frame would look exactly like the last one drawn, e.g. a
+         * time tick while nothing on screen depends on the time.
+         */
+        void invalidateIfChanged(int cause) {
+            long now = System.currentTimeMillis();
+            if (!isFrameCurrent(now)) {
+                invalidate(cause);
+                return;
+            }
 
-            if (complicationData[CENTER_COMPLICATION_ID] != null) {
-                if (complicationData[CENTER_COMPLICATION_ID].getShortText() != null)
-                    canvas.drawText(complicationData[CENTER_COMPLICATION_ID].getShortText().getText(
-                            getApplicationContext(), now).toString(),
-                            centerX, centerY + complicationMargin, centerPaint);
+            powerStats.recordCause(cause, now);
+            powerStats.recordSkipped(now);
+            // The frame on screen already shows the latest data of every slot.
+            if (updateCoalescer.hasPendingUpdates()) {
+                updateCoalescer.onFrameDrawn(SystemClock.uptimeMillis());
             }
+        }
+
+        // Whether a frame drawn at the given time would be identical to the last one drawn.
+        private boolean isFrameCurrent(long now) {
+            if (drawnFingerprint == NO_FINGERPRINT || showDebugOverlay || arcsAnimating
+                    || renderPipeline.hasPending()) {
+                return false;
+            }
+
+            // Cached renderings that are due are redrawn, so the frame may change.
+            if (isAmbientMode) {
+                if (ambientFrame.isStale(now)) {
+                    return false;
+                }
+            } else {
+                for (int i = 0; i < ComplicationSlots.getDrawableCount(); i++) {
+                    int complicationId = ComplicationSlots.getDrawableId(i);
+                    if (mComplicationDrawables[complicationId] != null
+                            && mComplicationLayers[complicationId].isStale(
+                                    complicationData[complicationId], now)) {
+                        return false;
+                    }
+                }
+            }
+            return computeRenderFingerprint(now) == drawnFingerprint;
+        }
+
+        /*
+         * Hash of everything a frame at the given time depends on: the render mode, the data of
+         * the circular slots, the center text and arcs as drawn, and the burn-in offset. The
+         * circular slots are cached renderings, so their data version stands in for them.
+         */
+        private long computeRenderFingerprint(long now) {
+            long fingerprint = renderMode;
+            for (int i = 0; i < ComplicationSlots.getDrawableCount(); i++) {
+                fingerprint = fingerprint * 31 + dataVersions[ComplicationSlots.getDrawableId(i)];
+            }
+
+            String text = centerText.get(getApplicationContext(), now);
+            fingerprint = fingerprint * 31 + (text != null ? text.hashCode() : 0);
+
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                fingerprint = fingerprint * 31 + mRangedComplication.getDrawnHash(now);
+            }
+
+            if (isAmbientMode && hasBurnInProtection) {
+                fingerprint = fingerprint * 31 + AmbientFrame.getBurnInOffsetX(now);
+                fingerprint = fingerprint * 31 + AmbientFrame.getBurnInOffsetY(now);
+            }
+
+            // Keeps a real fingerprint from reading as NO_FINGERPRINT.
+            return fingerprint != NO_FINGERPRINT ? fingerprint : 1;
+        }
+
+        void recordWakeUp() {
+            powerStats.recordWakeUp(System.currentTimeMillis());
+        }
+
+        public void setDebugOverlay(boolean show) {
+            showDebugOverlay = show;
+            drawnFingerprint = NO_FINGERPRINT;
+            invalidate(PowerStats.CAUSE_OTHER);
+        }
+
+        public boolean getDebugOverlay() {
+            return showDebugOverlay;
+        }
+
+        // Called from the service's dump(), on a binder thread.
+        void dump(PrintWriter writer) {
+            writer.println("Surface: " + (faceLayout != null
+                    ? faceLayout.getWidth() + "x" + faceLayout.getHeight() : "none")
+                    + " ambient=" + isAmbientMode + " hollow=" + isHollowMode
+                    + " lowBit=" + hasLowBitAmbient + " burnIn=" + hasBurnInProtection);
+            frameStats.dump(writer);
+        }
+
+        // Picks the paints of the current mode; no paint is restyled on a mode change.
+        private void updateRenderMode() {
+            renderMode = computeRenderMode();
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                mRangedComplication.setRenderMode(renderMode);
+            }
+        }
+
+        private int computeRenderMode() {
+            int mode = 0;
+            if (isAmbientMode) {
+                mode |= StaticLayerCache.MODE_AMBIENT;
+            }
+            if (isHollowMode) {
+                mode |= StaticLayerCache.MODE_HOLLOW;
+            }
+            if (hasLowBitAmbient) {
+                mode |= StaticLayerCache.MODE_LOW_BIT;
+            }
+            return mode;
+        }
+
+        // Renders the background fill, dividers and arc tracks into the static layer.
+        private void drawStaticLayer(Canvas canvas) {
+            drawBackground(canvas);
 
             if (!isAmbientMode) {
                 backgroundDividerDrawable.draw(canvas);
-                drawComplications(canvas, now);
             }
 
-            for (int i = 0; i < mRangedComplications.length; i++) {
-                ComplicationData complicationData = this.complicationData[i + RANGED_ID_OFFSET];
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                mRangedComplication.drawTrack(canvas);
+            }
+        }
 
-                mRangedComplications[i].draw(canvas, complicationData);
+        private void updateTrackKinds() {
+            int trackKinds = 0;
+            for (int i = 0; i < mRangedComplications.length; i++) {
+                trackKinds |= mRangedComplications[i].getTrackKind() << (i * 2);
             }
+            staticLayerCache.setTrackKinds(trackKinds);
         }
 
         private void drawComplications(Canvas canvas, long currentTimeMillis) {
-            for (int i = 0; i < CENTER_COMPLICATION_ID; i++) {
-                ComplicationDrawable complicationDrawable = mComplicationDrawables[i];
-                complicationDrawable.draw(canvas, currentTimeMillis);
+            drawingComplications = true;
+            int redrawn = 0;
+            for (int i = 0; i < ComplicationSlots.getDrawableCount(); i++) {
+                int complicationId = ComplicationSlots.getDrawableId(i);
+                if (mComplicationDrawables[complicationId] == null) {
+                    continue;
+                }
+                if (mComplicationLayers[complicationId].draw(canvas,
+                        mComplicationDrawables[complicationId],
+                        complicationData[complicationId], currentTimeMillis)) {
+                    redrawn++;
+                }
+            }
+            drawingComplications = false;
+
+            if (Tracing.isEnabled()) {
+                Tracing.setCounter("WatchFace.slotsRedrawn", redrawn);
+                Tracing.setCounter("WatchFace.layerCacheHits",
+                        ComplicationSlots.getDrawableCount() - redrawn);
+            }
+        }
+
+        // Time formatted text depends on the time zone, so everything showing text is evaluated
+        // again. Only text that actually changed makes it into a new frame.
+        private void invalidateTimeDependentText() {
+            centerText.invalidate();
+            for (ArcComplication mRangedComplication : mRangedComplications) {
+                mRangedComplication.invalidateText();
+            }
+            invalidateComplicationLayers();
+            ambientFrame.invalidate();
+        }
+
+        private void invalidateComplicationLayers() {
+            for (int i = 0; i < ComplicationSlots.getDrawableCount(); i++) {
+                mComplicationLayers[ComplicationSlots.getDrawableId(i)].invalidate();
             }
         }
 
@@ -578,11 +1114,14 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
                 registerReceiver();
                 // Update time zone in case it changed while we weren't visible.
                 calendar.setTimeZone(TimeZone.getDefault());
-                invalidate();
+                invalidateIfChanged(PowerStats.CAUSE_MODE);
             } else {
                 unregisterReceiver();
+                saveSnapshot();
             }
 
+            updateArcAnimations();
+
             updateTimer();
         }
 
@@ -603,11 +1142,44 @@ public class ComplicationWatchFaceService extends CanvasWatchFaceService {
             ComplicationWatchFaceService.this.unregisterReceiver(mTimeZoneReceiver);
         }
 
-        private void updateTimer() {
+        /*
+         * Posts a single delayed message for the next instant at which anything on screen can
+         * change, or none at all if the displayed content is static. Called again whenever the
+         * data or the mode changes.
+         */
+        void updateTimer() {
             mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
             if (shouldTimerBeRunning()) {
-                mUpdateTimeHandler.sendEmptyMessage(MSG_UPDATE_TIME);
+                long now = System.currentTimeMillis();
+                long next = getNextUpdateTime(now);
+                if (next != Long.MAX_VALUE) {
+                    mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, next - now);
+                }
+            }
+        }
+
+        private long getNextUpdateTime(long now) {
+            long next = Long.MAX_VALUE;
+
+            if (CLOCK_GRANULARITY_MS > 0) {
+                next = now + CLOCK_GRANULARITY_MS - (now % CLOCK_GRANULARITY_MS);
+            }
+
+            for (int i = 0; i < ComplicationSlots.SLOT_COUNT; i++) {
+                ComplicationData complicationData = this.complicationData[i];
+                if (ComplicationTimes.isEmpty(complicationData)) {
+                    continue;
+                }
+
+                next = Math.min(next, ComplicationTimes.getNextChangeTime(complicationData, now));
+                // Also true of ACTIVITY_CHANGE_UNKNOWN.
+                if (activityChanges[i] <= now) {
+                    activityChanges[i] =
+                            ComplicationTimes.getNextActivityChange(complicationData, now);
+                }
+                next = Math.min(next, activityChanges[i]);
             }
+            return next;
         }
 
         public boolean shouldTimerBeRunning() {
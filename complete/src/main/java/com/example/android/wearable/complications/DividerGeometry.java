@@ -0,0 +1,61 @@
+package com.example.android.wearable.complications;
+
+/**
+ * End points of the six divider lines drawn by {@link BackgroundDividerDrawable}. Plain Java so
+ * it can be benchmarked on the JVM.
+ */
+public final class DividerGeometry {
+
+    public static final float COS_22_5 = 0.924f;
+    public static final float SIN_22_5 = 0.383f;
+
+    // Four floats (startX, startY, endX, endY) per line, as expected by Canvas.drawLines.
+    public static final int LINE_COUNT = 6;
+    public static final int POINTS_LENGTH = LINE_COUNT * 4;
+
+    private DividerGeometry() {
+    }
+
+    public static void computeLines(int width, int height, float[] out) {
+        float centerX = width / 2f;
+        float centerY = height / 2f;
+        float offsetX = centerX + width / 4f;
+
+        //sinus part zeroes out
+        //xRot=cos(θ)⋅(x−cx)−sin(θ)⋅(y−cy)+cx
+        //cosine part zeroes out
+        //yRot=sin(θ)⋅(x−cx)+cos(θ)⋅(y−cy)+cy
+
+        float innerX = offsetX - centerX;
+        float innerY = (float) width - offsetX;
+        float outer = (float) width - centerX;
+
+        setLine(out, 0,
+                COS_22_5 * innerX + centerX, -SIN_22_5 * innerY + centerY,
+                COS_22_5 * outer + centerX, -SIN_22_5 * outer + centerY);
+        setLine(out, 1,
+                -COS_22_5 * innerX + centerX, -SIN_22_5 * innerY + centerY,
+                -COS_22_5 * outer + centerX, -SIN_22_5 * outer + centerY);
+        setLine(out, 2,
+                SIN_22_5 * innerX + centerX, -COS_22_5 * innerY + centerY,
+                SIN_22_5 * outer + centerX, -COS_22_5 * outer + centerY);
+        setLine(out, 3,
+                -SIN_22_5 * innerX + centerX, -COS_22_5 * innerY + centerY,
+                -SIN_22_5 * outer + centerX, -COS_22_5 * outer + centerY);
+        setLine(out, 4,
+                -COS_22_5 * innerX + centerX, SIN_22_5 * innerY + centerY,
+                -COS_22_5 * outer + centerX, SIN_22_5 * outer + centerY);
+        setLine(out, 5,
+                COS_22_5 * innerX + centerX, SIN_22_5 * innerY + centerY,
+                COS_22_5 * outer + centerX, SIN_22_5 * outer + centerY);
+    }
+
+    private static void setLine(float[] out, int line,
+                                float startX, float startY, float endX, float endY) {
+        int i = line * 4;
+        out[i] = startX;
+        out[i + 1] = startY;
+        out[i + 2] = endX;
+        out[i + 3] = endY;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.android.wearable.complications;
+
+import android.content.Context;
+import android.support.wearable.complications.rendering.ComplicationDrawable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The live engines of the process, and the state they share. The system may run a preview
+ * engine next to the active one, so settings are applied to every engine and kept here for the
+ * ones created later. Engines are only weakly referenced, so one that is never destroyed
+ * properly does not stay reachable through the registry.
+ *
+ * All methods run on the main thread, like the engines themselves.
+ */
+final class EngineRegistry {
+
+    private static final List<WeakReference<ComplicationWatchFaceService.Engine>> engines =
+            new ArrayList<>();
+
+    private static boolean hollowMode;
+
+    // The parsed custom_complication_styles, copied by every engine's slot drawables.
+    private static ComplicationDrawable complicationStyle;
+
+    private EngineRegistry() {
+    }
+
+    static void register(ComplicationWatchFaceService.Engine engine) {
+        prune();
+        engines.add(new WeakReference<>(engine));
+    }
+
+    static void unregister(ComplicationWatchFaceService.Engine engine) {
+        Iterator<WeakReference<ComplicationWatchFaceService.Engine>> iterator =
+                engines.iterator();
+        while (iterator.hasNext()) {
+            ComplicationWatchFaceService.Engine registered = iterator.next().get();
+            if (registered == null || registered == engine) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // Returns the live engines, oldest first.
+    static List<ComplicationWatchFaceService.Engine> getEngines() {
+        prune();
+        List<ComplicationWatchFaceService.Engine> live = new ArrayList<>(engines.size());
+        for (WeakReference<ComplicationWatchFaceService.Engine> reference : engines) {
+            ComplicationWatchFaceService.Engine engine = reference.get();
+            if (engine != null) {
+                live.add(engine);
+            }
+        }
+        return live;
+    }
+
+    /*
+     * Returns the engine drawing the actual watch face: the newest one that is not a preview,
+     * preferring a visible one. Falls back to the newest engine, or null if there is none.
+     */
+    static ComplicationWatchFaceService.Engine getActive() {
+        List<ComplicationWatchFaceService.Engine> live = getEngines();
+        ComplicationWatchFaceService.Engine active = null;
+        for (int i = live.size() - 1; i >= 0; i--) {
+            ComplicationWatchFaceService.Engine engine = live.get(i);
+            if (engine.isPreview()) {
+                continue;
+            }
+            if (engine.isVisible()) {
+                return engine;
+            }
+            if (active == null) {
+                active = engine;
+            }
+        }
+        if (active == null && !live.isEmpty()) {
+            active = live.get(live.size() - 1);
+        }
+        return active;
+    }
+
+    static boolean getHollowMode() {
+        return hollowMode;
+    }
+
+    static void setHollowMode(boolean hollow) {
+        hollowMode = hollow;
+        for (ComplicationWatchFaceService.Engine engine : getEngines()) {
+            engine.setHollowMode(hollow);
+        }
+    }
+
+    // Parses the complication style on first use. Returns null if it cannot be loaded.
+    static ComplicationDrawable getComplicationStyle(Context context) {
+        if (complicationStyle == null) {
+            complicationStyle = (ComplicationDrawable) context.getApplicationContext()
+                    .getDrawable(R.drawable.custom_complication_styles);
+        }
+        return complicationStyle;
+    }
+
+    private static void prune() {
+        Iterator<WeakReference<ComplicationWatchFaceService.Engine>> iterator =
+                engines.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.android.wearable.complications;
+
+import android.content.Context;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+
+/**
+ * The evaluated text of one slot. ComplicationText formats itself again on every getText() call;
+ * this keeps the result until the data changes or the text reaches its next change time, so the
+ * frames in between get the same String back without allocating.
+ */
+public class EvaluatedText {
+
+    // The short text alone, as drawn in the center.
+    public static final int KIND_SHORT_TEXT = 0;
+    // Short text, short title and image description joined, as drawn along an arc.
+    public static final int KIND_ARC_LABEL = 1;
+
+    private final int kind;
+    private ComplicationData complicationData;
+
+    private boolean valid;
+    private String text;
+    // Wall clock range the text was evaluated for: [evaluatedAt, nextChangeTime).
+    private long evaluatedAt;
+    private long nextChangeTime;
+
+    public EvaluatedText(int kind) {
+        this.kind = kind;
+    }
+
+    public void setComplicationData(ComplicationData complicationData) {
+        this.complicationData = complicationData;
+        valid = false;
+    }
+
+    // Evaluates the text again on the next get(), e.g. after a time zone change.
+    public void invalidate() {
+        valid = false;
+    }
+
+    // Takes over text evaluated elsewhere, e.g. by a PreparedSlot, for the given time range.
+    public void setEvaluated(ComplicationData complicationData, String text, long evaluatedAt,
+                             long nextChangeTime) {
+        this.complicationData = complicationData;
+        this.text = text;
+        this.evaluatedAt = evaluatedAt;
+        this.nextChangeTime = nextChangeTime;
+        valid = true;
+    }
+
+    // Time the text last returned by get() changes at.
+    public long getNextChangeTime() {
+        return nextChangeTime;
+    }
+
+    // Returns the text at the given wall clock time, or null if the data has none.
+    public String get(Context context, long now) {
+        if (!valid || now < evaluatedAt || now >= nextChangeTime) {
+            evaluate(context, now);
+        }
+        return text;
+    }
+
+    private void evaluate(Context context, long now) {
+        valid = true;
+        evaluatedAt = now;
+        text = null;
+        nextChangeTime = Long.MAX_VALUE;
+
+        if (complicationData == null) {
+            return;
+        }
+
+        ComplicationText shortText = complicationData.getShortText();
+        if (kind == KIND_SHORT_TEXT) {
+            if (shortText != null) {
+                text = shortText.getText(context, now).toString();
+                nextChangeTime = shortText.getNextChangeTime(now);
+            }
+        } else {
+            ComplicationText shortTitle = complicationData.getShortTitle();
+            ComplicationText description = complicationData.getImageContentDescription();
+            text = ArcMath.buildLabel(getText(context, shortText, now),
+                    getText(context, shortTitle, now),
+                    getText(context, description, now));
+            nextChangeTime = Math.min(getNextChangeTime(shortText, now),
+                    Math.min(getNextChangeTime(shortTitle, now),
+                            getNextChangeTime(description, now)));
+        }
+    }
+
+    private static CharSequence getText(Context context, ComplicationText complicationText,
+                                        long now) {
+        return complicationText != null ? complicationText.getText(context, now) : null;
+    }
+
+    private static long getNextChangeTime(ComplicationText complicationText, long now) {
+        return complicationText != null ? complicationText.getNextChangeTime(now) : Long.MAX_VALUE;
+    }
+}
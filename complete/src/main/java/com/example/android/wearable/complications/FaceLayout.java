@@ -0,0 +1,261 @@
+package com.example.android.wearable.complications;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable slot geometry for one watch face surface: complication bounds, arc bounds and
+ * angles, and text sizes. Layouts are computed once per surface size and the last few are cached,
+ * so surface changes and preview engines reuse them instead of rebuilding.
+ *
+ * This class deliberately has no Android dependencies so it can be unit tested and benchmarked
+ * on the JVM. Which slot ids exist, where they sit and where arcs start come from the
+ * {@link SlotGeometry} of the slot table; this class only knows the bounds of each location.
+ */
+public final class FaceLayout {
+
+    public static final int ARC_SWEEP_ANGLE = 70;
+
+    private final SlotGeometry geometry;
+    private final int width;
+    private final int height;
+
+    private final int complicationSize;
+    private final int complicationMargin;
+    private final float centerTextWidth;
+    private final float arcWidth;
+
+    // Left, Top, Right, Bottom of the oval the arcs are drawn on.
+    private final float[] arcBounds = new float[4];
+
+    // Left, Top, Right, Bottom for every slot id. Arc slots hold the bounds of their icon.
+    private final int[] slotBounds;
+
+    // End points of the background divider lines, as passed to Canvas.drawLines.
+    private final float[] dividerLines = new float[DividerGeometry.POINTS_LENGTH];
+
+    private final HitTestMap hitTestMap;
+
+    /**
+     * Returns the cached layout of the slots for the given surface, computing it on first use.
+     */
+    public static FaceLayout get(SlotGeometry geometry, int width, int height) {
+        long key = ((long) width << 32) | (height & 0xFFFFFFFFL);
+
+        synchronized (geometry.layouts) {
+            FaceLayout layout = geometry.layouts.get(key);
+            if (layout == null) {
+                layout = create(geometry, width, height);
+                geometry.layouts.put(key, layout);
+            }
+            return layout;
+        }
+    }
+
+    // Computes a layout without going through the cache.
+    static FaceLayout create(SlotGeometry geometry, int width, int height) {
+        return new FaceLayout(geometry, width, height);
+    }
+
+    private FaceLayout(SlotGeometry geometry, int width, int height) {
+        this.geometry = geometry;
+        this.width = width;
+        this.height = height;
+
+        /* We suggest using at least 1/4 of the screen width for circular (or squared)
+         * complications and 2/3 of the screen width for wide rectangular complications for
+         * better readability */
+
+        int sizeOfComplication = width / 4;
+        int midpointOfScreen = width / 2;
+
+        complicationSize = sizeOfComplication;
+        centerTextWidth = width / 4f;
+        complicationMargin = sizeOfComplication / 18;
+
+        float rangeWidthF = width / 20f;
+        int rangeThickness = width / 20;
+        float rangeOffsetF = rangeWidthF / 2;
+        int rangeOffset = rangeThickness / 2;
+        arcWidth = rangeWidthF;
+
+        arcBounds[0] = rangeOffsetF;
+        arcBounds[1] = rangeOffsetF;
+        arcBounds[2] = width - rangeOffsetF;
+        arcBounds[3] = height - rangeOffsetF;
+
+        int radialMarginOffset = (midpointOfScreen - sizeOfComplication) / 2;
+        int verticalOffset = midpointOfScreen - (sizeOfComplication / 2);
+
+        Map<ComplicationLocation, int[]> bounds = new EnumMap<>(ComplicationLocation.class);
+
+        //region Center bounds
+
+        putBounds(bounds, ComplicationLocation.RIGHT,
+                (width - sizeOfComplication),
+                verticalOffset,
+                (width) - (int) rangeWidthF,
+                (verticalOffset + sizeOfComplication));
+
+        putBounds(bounds, ComplicationLocation.TOP_RIGHT,
+                (width - radialMarginOffset - sizeOfComplication),
+                (radialMarginOffset + (int) rangeOffsetF),
+                (width - radialMarginOffset - (int) rangeOffsetF),
+                (radialMarginOffset + sizeOfComplication));
+
+        putBounds(bounds, ComplicationLocation.TOP,
+                (midpointOfScreen - radialMarginOffset),
+                (0),
+                (midpointOfScreen + radialMarginOffset),
+                (sizeOfComplication + radialMarginOffset));
+
+        putBounds(bounds, ComplicationLocation.TOP_LEFT,
+                (radialMarginOffset + (int) rangeOffsetF),
+                (radialMarginOffset + (int) rangeOffsetF),
+                (radialMarginOffset + sizeOfComplication),
+                (radialMarginOffset + sizeOfComplication));
+
+        putBounds(bounds, ComplicationLocation.LEFT,
+                (int) rangeWidthF,
+                verticalOffset,
+                (sizeOfComplication),
+                (verticalOffset + sizeOfComplication));
+
+        int leftBottom = bounds.get(ComplicationLocation.LEFT)[3];
+        putBounds(bounds, ComplicationLocation.BOTTOM,
+                radialMarginOffset,
+                leftBottom,
+                (width - radialMarginOffset),
+                leftBottom + sizeOfComplication);
+
+        putBounds(bounds, ComplicationLocation.CENTER,
+                bounds.get(ComplicationLocation.LEFT)[2],
+                bounds.get(ComplicationLocation.TOP)[3],
+                bounds.get(ComplicationLocation.RIGHT)[0],
+                bounds.get(ComplicationLocation.BOTTOM)[1]);
+
+        //endregion
+
+        //region Arc icon bounds
+
+        int arcCenterX = (int) ((arcBounds[0] + arcBounds[2]) / 2);
+        int arcCenterY = (int) ((arcBounds[1] + arcBounds[3]) / 2);
+
+        putBounds(bounds, ComplicationLocation.TOP_RIGHT_RANGED,
+                arcCenterX - rangeOffset,
+                0,
+                arcCenterX + rangeOffset,
+                rangeThickness);
+
+        putBounds(bounds, ComplicationLocation.BOTTOM_RIGHT_RANGED,
+                (int) arcBounds[2] - rangeOffset,
+                arcCenterY - rangeOffset,
+                (int) arcBounds[2] + rangeOffset,
+                arcCenterY + rangeOffset);
+
+        putBounds(bounds, ComplicationLocation.BOTTOM_LEFT_RANGED,
+                arcCenterX - rangeOffset,
+                (int) arcBounds[3] - rangeOffset,
+                arcCenterX + rangeOffset,
+                (int) arcBounds[3] + rangeOffset);
+
+        putBounds(bounds, ComplicationLocation.TOP_LEFT_RANGED,
+                (int) arcBounds[0] - rangeOffset,
+                arcCenterY - rangeOffset,
+                (int) arcBounds[0] + rangeOffset,
+                arcCenterY + rangeOffset);
+
+        //endregion
+
+        slotBounds = new int[geometry.getSlotCount() * 4];
+        for (int slotId = 0; slotId < geometry.getSlotCount(); slotId++) {
+            System.arraycopy(bounds.get(geometry.getLocation(slotId)), 0,
+                    slotBounds, slotId * 4, 4);
+        }
+
+        DividerGeometry.computeLines(width, height, dividerLines);
+
+        hitTestMap = new HitTestMap(this);
+    }
+
+    private static void putBounds(Map<ComplicationLocation, int[]> bounds,
+                                  ComplicationLocation location,
+                                  int left, int top, int right, int bottom) {
+        bounds.put(location, new int[] {left, top, right, bottom});
+    }
+
+    public SlotGeometry getGeometry() {
+        return geometry;
+    }
+
+    public HitTestMap getHitTestMap() {
+        return hitTestMap;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getComplicationSize() {
+        return complicationSize;
+    }
+
+    public int getComplicationMargin() {
+        return complicationMargin;
+    }
+
+    // Width the center text "22:22" should span.
+    public float getCenterTextWidth() {
+        return centerTextWidth;
+    }
+
+    // Shared by every user of this layout, so it must not be modified.
+    public float[] getDividerLines() {
+        return dividerLines;
+    }
+
+    public float getArcWidth() {
+        return arcWidth;
+    }
+
+    public float getArcLeft() {
+        return arcBounds[0];
+    }
+
+    public float getArcTop() {
+        return arcBounds[1];
+    }
+
+    public float getArcRight() {
+        return arcBounds[2];
+    }
+
+    public float getArcBottom() {
+        return arcBounds[3];
+    }
+
+    // Start angle of the arc in the given slot, clockwise from 3 o'clock.
+    public int getArcStartAngle(int slotId) {
+        return geometry.getArcStartAngle(slotId);
+    }
+
+    public int getLeft(int slotId) {
+        return slotBounds[slotId * 4];
+    }
+
+    public int getTop(int slotId) {
+        return slotBounds[slotId * 4 + 1];
+    }
+
+    public int getRight(int slotId) {
+        return slotBounds[slotId * 4 + 2];
+    }
+
+    public int getBottom(int slotId) {
+        return slotBounds[slotId * 4 + 3];
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.android.wearable.complications;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draw time instrumentation for the watch face engine. Each frame is split into stages and every
+ * stage, plus the whole frame, is recorded into its own {@link FrameTimeHistogram}, separately
+ * for interactive and ambient mode. Nothing here allocates per frame.
+ */
+public final class FrameStats {
+
+    public static final int STAGE_BACKGROUND = 0;
+    public static final int STAGE_CENTER_TEXT = 1;
+    public static final int STAGE_COMPLICATIONS = 2;
+    public static final int STAGE_RANGED = 3;
+    public static final int STAGE_TOTAL = 4;
+    private static final int STAGE_COUNT = 5;
+
+    public static final int MODE_INTERACTIVE = 0;
+    public static final int MODE_AMBIENT = 1;
+    private static final int MODE_COUNT = 2;
+
+    private static final String[] STAGE_NAMES = {
+            "background", "center text", "complications", "ranged arcs", "total"
+    };
+    private static final String[] MODE_NAMES = {"interactive", "ambient"};
+
+    // One frame at 60 fps.
+    public static final long FRAME_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(16_667);
+
+    private final FrameTimeHistogram[][] histograms =
+            new FrameTimeHistogram[MODE_COUNT][STAGE_COUNT];
+
+    private int mode;
+    private long frameStartNanos;
+    private long stageStartNanos;
+
+    public FrameStats() {
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            for (int stage = 0; stage < STAGE_COUNT; stage++) {
+                histograms[mode][stage] = new FrameTimeHistogram(FRAME_BUDGET_NANOS);
+            }
+        }
+    }
+
+    public void beginFrame(boolean ambient) {
+        mode = ambient ? MODE_AMBIENT : MODE_INTERACTIVE;
+        frameStartNanos = System.nanoTime();
+        stageStartNanos = frameStartNanos;
+    }
+
+    // Records the time since the previous stage (or the frame start) against the given stage.
+    public void endStage(int stage) {
+        long now = System.nanoTime();
+        histograms[mode][stage].record(now - stageStartNanos);
+        stageStartNanos = now;
+    }
+
+    // Returns the total time of the frame.
+    public long endFrame() {
+        long frameNanos = System.nanoTime() - frameStartNanos;
+        histograms[mode][STAGE_TOTAL].record(frameNanos);
+        return frameNanos;
+    }
+
+    public FrameTimeHistogram getHistogram(int mode, int stage) {
+        return histograms[mode][stage];
+    }
+
+    // Appends "p50 p95 p99 over" for the total frame time of a mode, in milliseconds, without
+    // allocating. Used by the on-screen debug overlay.
+    public void appendSummary(StringBuilder builder, int mode) {
+        FrameTimeHistogram histogram = histograms[mode][STAGE_TOTAL];
+        builder.append("p50 ");
+        appendMillis(builder, histogram.getPercentileMicros(50));
+        builder.append(" p95 ");
+        appendMillis(builder, histogram.getPercentileMicros(95));
+        builder.append(" p99 ");
+        appendMillis(builder, histogram.getPercentileMicros(99));
+        builder.append(" over ").append(histogram.getOverBudgetCount());
+    }
+
+    private static void appendMillis(StringBuilder builder, long micros) {
+        builder.append(micros / 1000).append('.').append((micros / 100) % 10);
+    }
+
+    public void dump(PrintWriter writer) {
+        StringBuilder builder = new StringBuilder();
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            writer.println("Frame times (" + MODE_NAMES[mode] + ", ms):");
+            for (int stage = 0; stage < STAGE_COUNT; stage++) {
+                FrameTimeHistogram histogram = histograms[mode][stage];
+                builder.setLength(0);
+                builder.append("  ").append(STAGE_NAMES[stage]).append(": n=")
+                        .append(histogram.getCount()).append(" mean ");
+                appendMillis(builder, histogram.getMeanMicros());
+                builder.append(" p50 ");
+                appendMillis(builder, histogram.getPercentileMicros(50));
+                builder.append(" p95 ");
+                appendMillis(builder, histogram.getPercentileMicros(95));
+                builder.append(" p99 ");
+                appendMillis(builder, histogram.getPercentileMicros(99));
+                builder.append(" max ");
+                appendMillis(builder, histogram.getMaxMicros());
+                builder.append(" over budget ").append(histogram.getOverBudgetCount());
+                writer.println(builder);
+            }
+        }
+    }
+
+    public void reset() {
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            for (int stage = 0; stage < STAGE_COUNT; stage++) {
+                histograms[mode][stage].reset();
+            }
+        }
+    }
+}
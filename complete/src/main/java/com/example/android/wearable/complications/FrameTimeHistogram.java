@@ -0,0 +1,83 @@
+package com.example.android.wearable.complications;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations. Buckets are {@link #BUCKET_WIDTH_MICROS} wide up to
+ * {@link #MAX_TRACKED_MICROS}; longer samples all land in a final overflow bucket. Recording a
+ * sample never allocates, so it is safe to call from the draw path.
+ *
+ * Plain Java so it can be benchmarked on the JVM.
+ */
+public final class FrameTimeHistogram {
+
+    public static final int BUCKET_WIDTH_MICROS = 100;
+    public static final int MAX_TRACKED_MICROS = 50_000;
+    private static final int BUCKET_COUNT = MAX_TRACKED_MICROS / BUCKET_WIDTH_MICROS + 1;
+
+    private final long budgetNanos;
+    private final long[] buckets = new long[BUCKET_COUNT];
+
+    private long count;
+    private long overBudgetCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    public FrameTimeHistogram(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public void record(long durationNanos) {
+        int bucket = (int) Math.min(durationNanos / 1000 / BUCKET_WIDTH_MICROS, BUCKET_COUNT - 1);
+        buckets[bucket]++;
+        count++;
+        totalNanos += durationNanos;
+        if (durationNanos > maxNanos) {
+            maxNanos = durationNanos;
+        }
+        if (durationNanos > budgetNanos) {
+            overBudgetCount++;
+        }
+    }
+
+    // Upper edge of the bucket holding the given percentile (0-100), in microseconds.
+    public long getPercentileMicros(int percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (count * percentile + 99) / 100;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return i == BUCKET_COUNT - 1 ? maxNanos / 1000 : (i + 1) * BUCKET_WIDTH_MICROS;
+            }
+        }
+        return maxNanos / 1000;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getOverBudgetCount() {
+        return overBudgetCount;
+    }
+
+    public long getMeanMicros() {
+        return count == 0 ? 0 : totalNanos / count / 1000;
+    }
+
+    public long getMaxMicros() {
+        return maxNanos / 1000;
+    }
+
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        overBudgetCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.android.wearable.complications;
+
+/**
+ * Constant time lookup from a tap position to a slot id, built once per {@link FaceLayout}.
+ *
+ * Taps on the ring the arcs are drawn on are mapped to an arc through a per-degree angle table;
+ * each arc owns its sweep plus the gap back to the end of the arc before it, where its icon sits.
+ * Other taps are looked up in a coarse grid whose cells list the other slots overlapping them.
+ * Taps just off the ring that miss every other slot still go to the nearest arc. The slots and
+ * arc angles come from the layout's {@link SlotGeometry}.
+ *
+ * Plain Java so it can be benchmarked on the JVM.
+ */
+public final class HitTestMap {
+
+    private static final int GRID_SIZE = 8;
+
+    private final int cellWidth;
+    private final int cellHeight;
+
+    // Bit mask of the slots other than arcs overlapping each grid cell.
+    private final int[] cellMasks = new int[GRID_SIZE * GRID_SIZE];
+
+    // Left, Top, Right, Bottom of every slot. Only read for slots in cellMasks.
+    private final int[] slotBounds;
+
+    // Arc slot id for every whole degree, clockwise from 3 o'clock.
+    private final byte[] angleToSlot = new byte[360];
+
+    private final float centerX;
+    private final float centerY;
+    private final float radiusX;
+    private final float radiusY;
+
+    // Squared inner and outer edge of the drawn stroke and of the tolerance band around it,
+    // relative to the arc radius.
+    private final float strokeInnerSquared;
+    private final float strokeOuterSquared;
+    private final float bandInnerSquared;
+    private final float bandOuterSquared;
+
+    HitTestMap(FaceLayout layout) {
+        int width = Math.max(layout.getWidth(), 1);
+        int height = Math.max(layout.getHeight(), 1);
+        cellWidth = (width + GRID_SIZE - 1) / GRID_SIZE;
+        cellHeight = (height + GRID_SIZE - 1) / GRID_SIZE;
+
+        SlotGeometry geometry = layout.getGeometry();
+        int slotCount = geometry.getSlotCount();
+        slotBounds = new int[slotCount * 4];
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (geometry.isArc(slot)) {
+                continue;
+            }
+            int left = layout.getLeft(slot);
+            int top = layout.getTop(slot);
+            int right = layout.getRight(slot);
+            int bottom = layout.getBottom(slot);
+
+            slotBounds[slot * 4] = left;
+            slotBounds[slot * 4 + 1] = top;
+            slotBounds[slot * 4 + 2] = right;
+            slotBounds[slot * 4 + 3] = bottom;
+
+            if (right <= left || bottom <= top) {
+                continue;
+            }
+
+            int firstColumn = clampCell(left / cellWidth);
+            int lastColumn = clampCell((right - 1) / cellWidth);
+            int firstRow = clampCell(top / cellHeight);
+            int lastRow = clampCell((bottom - 1) / cellHeight);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    cellMasks[row * GRID_SIZE + column] |= 1 << slot;
+                }
+            }
+        }
+
+        for (int i = 0; i < angleToSlot.length; i++) {
+            angleToSlot[i] = -1;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!geometry.isArc(slot)) {
+                continue;
+            }
+            int start = geometry.getArcStartAngle(slot) - getGapBefore(geometry, slot);
+            int end = geometry.getArcStartAngle(slot) + FaceLayout.ARC_SWEEP_ANGLE;
+            for (int angle = start; angle < end; angle++) {
+                angleToSlot[((angle % 360) + 360) % 360] = (byte) slot;
+            }
+        }
+
+        centerX = (layout.getArcLeft() + layout.getArcRight()) / 2;
+        centerY = (layout.getArcTop() + layout.getArcBottom()) / 2;
+        radiusX = Math.max((layout.getArcRight() - layout.getArcLeft()) / 2, 1);
+        radiusY = Math.max((layout.getArcBottom() - layout.getArcTop()) / 2, 1);
+
+        float radius = Math.min(radiusX, radiusY);
+        float arcWidth = layout.getArcWidth();
+        strokeInnerSquared = ratioSquared(radius - arcWidth / 2, radius);
+        strokeOuterSquared = ratioSquared(radius + arcWidth / 2, radius);
+        bandInnerSquared = ratioSquared(radius - arcWidth, radius);
+        bandOuterSquared = ratioSquared(radius + arcWidth, radius);
+    }
+
+    // Degrees between the start of the arc and the end of the previous arc, counterclockwise.
+    private static int getGapBefore(SlotGeometry geometry, int arcSlot) {
+        int start = geometry.getArcStartAngle(arcSlot);
+        int gap = 360 - FaceLayout.ARC_SWEEP_ANGLE;
+        for (int slot = 0; slot < geometry.getSlotCount(); slot++) {
+            if (slot != arcSlot && geometry.isArc(slot)) {
+                int end = geometry.getArcStartAngle(slot) + FaceLayout.ARC_SWEEP_ANGLE;
+                gap = Math.min(gap, ((start - end) % 360 + 360) % 360);
+            }
+        }
+        return gap;
+    }
+
+    private static float ratioSquared(float distance, float radius) {
+        float ratio = Math.max(distance, 0) / radius;
+        return ratio * ratio;
+    }
+
+    private static int clampCell(int cell) {
+        return Math.max(0, Math.min(GRID_SIZE - 1, cell));
+    }
+
+    /**
+     * Returns the slot under the point, or -1. Only slots whose bit is set in tappableMask are
+     * considered. Where slots other than arcs overlap, the lower id wins.
+     */
+    public int getSlotAt(int x, int y, int tappableMask) {
+        float dx = (x - centerX) / radiusX;
+        float dy = (y - centerY) / radiusY;
+        float distanceSquared = dx * dx + dy * dy;
+
+        if (distanceSquared >= strokeInnerSquared && distanceSquared <= strokeOuterSquared) {
+            int slot = getArcSlot(dx, dy, tappableMask);
+            if (slot != -1) {
+                return slot;
+            }
+        }
+
+        if (x >= 0 && y >= 0) {
+            int column = x / cellWidth;
+            int row = y / cellHeight;
+            if (column < GRID_SIZE && row < GRID_SIZE) {
+                int candidates = cellMasks[row * GRID_SIZE + column] & tappableMask;
+                while (candidates != 0) {
+                    int slot = Integer.numberOfTrailingZeros(candidates);
+                    int i = slot * 4;
+                    if (x >= slotBounds[i] && x < slotBounds[i + 2]
+                            && y >= slotBounds[i + 1] && y < slotBounds[i + 3]) {
+                        return slot;
+                    }
+                    candidates &= candidates - 1;
+                }
+            }
+        }
+
+        if (distanceSquared >= bandInnerSquared && distanceSquared <= bandOuterSquared) {
+            return getArcSlot(dx, dy, tappableMask);
+        }
+        return -1;
+    }
+
+    private int getArcSlot(float dx, float dy, int tappableMask) {
+        int angle = (int) Math.toDegrees(Math.atan2(dy, dx));
+        int slot = angleToSlot[(angle + 360) % 360];
+        if (slot >= 0 && (tappableMask & (1 << slot)) != 0) {
+            return slot;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.android.wearable.complications;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.os.Build;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decoded resource icons, shared by every engine in the process. Only the drawables' constant
+ * state is kept, so each caller gets its own drawable to tint and bound, backed by the same
+ * decoded image. Other icon types carry their own pixels and are decoded as they come.
+ *
+ * Called from the RenderPipeline threads of all engines.
+ */
+final class IconCache {
+
+    // Providers use a handful of icons each; the cache starts over rather than growing past this.
+    private static final int MAX_SIZE = 64;
+
+    private static final Map<String, Drawable.ConstantState> cache = new HashMap<>();
+
+    private IconCache() {
+    }
+
+    // Returns a new, mutable drawable of the icon, or null if it cannot be loaded.
+    static Drawable load(Context context, Icon icon) {
+        String key = getKey(icon);
+        if (key == null) {
+            return mutate(icon.loadDrawable(context));
+        }
+
+        Drawable.ConstantState state;
+        synchronized (cache) {
+            state = cache.get(key);
+        }
+        if (state == null) {
+            Drawable drawable = icon.loadDrawable(context);
+            state = drawable != null ? drawable.getConstantState() : null;
+            if (state == null) {
+                return mutate(drawable);
+            }
+            synchronized (cache) {
+                if (cache.size() >= MAX_SIZE) {
+                    cache.clear();
+                }
+                cache.put(key, state);
+            }
+        }
+        return mutate(state.newDrawable());
+    }
+
+    private static String getKey(Icon icon) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P || icon.getType() != Icon.TYPE_RESOURCE) {
+            return null;
+        }
+        return icon.getResPackage() + ":" + icon.getResId();
+    }
+
+    private static Drawable mutate(Drawable drawable) {
+        return drawable != null ? drawable.mutate() : null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.android.wearable.complications;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+
+/**
+ * One paint per render mode, indexed by the {@link StaticLayerCache} MODE_* bits. All of them
+ * are built up front, so a mode change picks another paint instead of restyling a shared one,
+ * and the result does not depend on the order the mode bits changed in. Sizes that follow the
+ * surface are set on the existing paints, so a surface change does not build a new set.
+ */
+public final class PaintSet {
+
+    public static final int MODE_COUNT = 1 << 3;
+
+    private final Paint[] paints = new Paint[MODE_COUNT];
+
+    private PaintSet() {
+    }
+
+    public Paint get(int mode) {
+        return paints[mode];
+    }
+
+    public void setTextSize(float textSize) {
+        for (Paint paint : paints) {
+            paint.setTextSize(textSize);
+        }
+    }
+
+    // Sets the width of an arc set. Hollow arcs keep their thin outline.
+    public void setArcWidth(float width) {
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            if ((mode & StaticLayerCache.MODE_HOLLOW) == 0) {
+                paints[mode].setStrokeWidth(width);
+            }
+        }
+    }
+
+    /*
+     * Text drawn directly on the face. Hollow text is outlined in both modes, otherwise it is
+     * filled in ambient and filled and stroked in interactive mode. Anti-aliasing is off on low
+     * bit ambient displays.
+     */
+    public static PaintSet forText(int color, float textSize) {
+        PaintSet set = new PaintSet();
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            boolean ambient = (mode & StaticLayerCache.MODE_AMBIENT) != 0;
+            boolean lowBit = (mode & StaticLayerCache.MODE_LOW_BIT) != 0;
+
+            Paint paint = new Paint();
+            if ((mode & StaticLayerCache.MODE_HOLLOW) != 0) {
+                paint.setStyle(Paint.Style.STROKE);
+            } else if (ambient) {
+                paint.setStyle(Paint.Style.FILL);
+            } else {
+                paint.setStyle(Paint.Style.FILL_AND_STROKE);
+            }
+            paint.setStrokeWidth(1f);
+            paint.setTextAlign(Paint.Align.CENTER);
+            paint.setTextSize(textSize);
+            paint.setColor(color);
+            paint.setAntiAlias(!(ambient && lowBit));
+            set.paints[mode] = paint;
+        }
+        return set;
+    }
+
+    /*
+     * Strokes of an arc of the given width. Ambient arcs are drawn in the ambient color without
+     * anti-aliasing, hollow arcs as a thin outline.
+     */
+    public static PaintSet forArc(int color, int ambientColor, float width) {
+        PaintSet set = new PaintSet();
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            boolean ambient = (mode & StaticLayerCache.MODE_AMBIENT) != 0;
+
+            Paint paint = new Paint();
+            paint.setColor(ambient ? ambientColor : color);
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setAntiAlias(!ambient);
+            paint.setStrokeCap(Paint.Cap.ROUND);
+            paint.setStrokeWidth((mode & StaticLayerCache.MODE_HOLLOW) != 0 ? 2 : width);
+            paint.setShadowLayer(2, 0, 0, Color.BLACK);
+            set.paints[mode] = paint;
+        }
+        return set;
+    }
+}
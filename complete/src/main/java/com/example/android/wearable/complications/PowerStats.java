@@ -0,0 +1,141 @@
+package com.example.android.wearable.complications;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hourly accounting of the work the face does, to attribute battery drain. A fixed ring of
+ * HOUR_COUNT buckets counts handler wake-ups, redraw requests by cause, and the frames drawn and
+ * time spent drawing per mode. Recording never allocates; the oldest hour is reused once the ring
+ * is full.
+ *
+ * This class deliberately has no Android dependencies so it can be benchmarked on the JVM.
+ */
+public final class PowerStats {
+
+    // Why work was requested. Taps run their action without a redraw but still wake the face.
+    public static final int CAUSE_TIMER = 0;
+    public static final int CAUSE_DATA = 1;
+    public static final int CAUSE_TAP = 2;
+    public static final int CAUSE_MODE = 3;
+    public static final int CAUSE_TIME_ZONE = 4;
+    public static final int CAUSE_ANIMATION = 5;
+    public static final int CAUSE_OTHER = 6;
+    private static final int CAUSE_COUNT = 7;
+
+    private static final String[] CAUSE_NAMES = {
+            "timer", "data", "tap", "mode", "time_zone", "animation", "other"
+    };
+
+    // Two days of history.
+    public static final int HOUR_COUNT = 48;
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+    // Hour (since the epoch) each bucket holds, or -1 if unused.
+    private final long[] hours = new long[HOUR_COUNT];
+    private final int[] wakeUps = new int[HOUR_COUNT];
+    private final int[] causes = new int[HOUR_COUNT * CAUSE_COUNT];
+    // Redraw requests dropped because the frame would not have changed.
+    private final int[] skipped = new int[HOUR_COUNT];
+    // Indexed by bucket * 2 + (ambient ? 1 : 0).
+    private final int[] frames = new int[HOUR_COUNT * 2];
+    private final long[] drawNanos = new long[HOUR_COUNT * 2];
+
+    public PowerStats() {
+        reset();
+    }
+
+    public synchronized void recordWakeUp(long currentTimeMillis) {
+        wakeUps[getBucket(currentTimeMillis)]++;
+    }
+
+    public synchronized void recordCause(int cause, long currentTimeMillis) {
+        causes[getBucket(currentTimeMillis) * CAUSE_COUNT + cause]++;
+    }
+
+    public synchronized void recordSkipped(long currentTimeMillis) {
+        skipped[getBucket(currentTimeMillis)]++;
+    }
+
+    public synchronized void recordFrame(boolean ambient, long frameNanos,
+                                         long currentTimeMillis) {
+        int i = getBucket(currentTimeMillis) * 2 + (ambient ? 1 : 0);
+        frames[i]++;
+        drawNanos[i] += frameNanos;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < HOUR_COUNT; i++) {
+            clearBucket(i, -1);
+        }
+    }
+
+    /*
+     * Writes one CSV row per recorded hour, oldest first. Times are the start of the hour in
+     * milliseconds since the epoch, draw times are in milliseconds.
+     */
+    public synchronized void writeCsv(PrintWriter writer) {
+        writer.print("hour_start_ms,wake_ups");
+        for (String name : CAUSE_NAMES) {
+            writer.print(",");
+            writer.print(name);
+        }
+        writer.println(",skipped,interactive_frames,interactive_draw_ms,ambient_frames,ambient_draw_ms");
+
+        int newest = 0;
+        for (int i = 1; i < HOUR_COUNT; i++) {
+            if (hours[i] > hours[newest]) {
+                newest = i;
+            }
+        }
+
+        for (int n = 1; n <= HOUR_COUNT; n++) {
+            int bucket = (newest + n) % HOUR_COUNT;
+            // Unused, or left over from before a gap longer than the ring.
+            if (hours[bucket] < 0 || hours[bucket] <= hours[newest] - HOUR_COUNT) {
+                continue;
+            }
+
+            writer.print(hours[bucket] * HOUR_MS);
+            writer.print(",");
+            writer.print(wakeUps[bucket]);
+            for (int cause = 0; cause < CAUSE_COUNT; cause++) {
+                writer.print(",");
+                writer.print(causes[bucket * CAUSE_COUNT + cause]);
+            }
+            writer.print(",");
+            writer.print(skipped[bucket]);
+            for (int mode = 0; mode < 2; mode++) {
+                writer.print(",");
+                writer.print(frames[bucket * 2 + mode]);
+                writer.print(",");
+                writer.print(TimeUnit.NANOSECONDS.toMillis(drawNanos[bucket * 2 + mode]));
+            }
+            writer.println();
+        }
+    }
+
+    // Returns the bucket of the hour holding the given time, starting it over if it last held
+    // an older hour.
+    private int getBucket(long currentTimeMillis) {
+        long hour = currentTimeMillis / HOUR_MS;
+        int bucket = (int) (hour % HOUR_COUNT);
+        if (hours[bucket] != hour) {
+            clearBucket(bucket, hour);
+        }
+        return bucket;
+    }
+
+    private void clearBucket(int bucket, long hour) {
+        hours[bucket] = hour;
+        wakeUps[bucket] = 0;
+        skipped[bucket] = 0;
+        for (int cause = 0; cause < CAUSE_COUNT; cause++) {
+            causes[bucket * CAUSE_COUNT + cause] = 0;
+        }
+        for (int mode = 0; mode < 2; mode++) {
+            frames[bucket * 2 + mode] = 0;
+            drawNanos[bucket * 2 + mode] = 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.android.wearable.complications;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.os.Build;
+import android.support.wearable.complications.ComplicationData;
+
+/**
+ * Ready to draw state of one slot that the face renders itself: its data, the text evaluated
+ * when it was prepared, the ranged value as a fraction of the sweep and the decoded icon. Built
+ * off the main thread by {@link RenderPipeline} and never changed afterwards; the icon is only
+ * tinted and bounded by the main thread once the slot has been handed over.
+ */
+public final class PreparedSlot {
+
+    public final ComplicationData data;
+
+    // Text valid from textEvaluatedAt until textNextChangeTime, or null if the data has none.
+    public final String text;
+    public final long textEvaluatedAt;
+    public final long textNextChangeTime;
+
+    // Fraction of the sweep for ranged values, -1 otherwise.
+    public final float percent;
+
+    public final Icon iconSource;
+    public final Drawable icon;
+
+    private PreparedSlot(ComplicationData data, String text, long textEvaluatedAt,
+                         long textNextChangeTime, float percent, Icon iconSource,
+                         Drawable icon) {
+        this.data = data;
+        this.text = text;
+        this.textEvaluatedAt = textEvaluatedAt;
+        this.textNextChangeTime = textNextChangeTime;
+        this.percent = percent;
+        this.iconSource = iconSource;
+        this.icon = icon;
+    }
+
+    /*
+     * Prepares the data of the given slot at the given time. The icon of the previous slot
+     * state is reused when it still shows the same image, so unchanged icons are not decoded
+     * again on every update.
+     */
+    public static PreparedSlot prepare(Context context, int complicationId,
+                                       ComplicationData data, PreparedSlot previous, long now) {
+        boolean arc = ComplicationSlots.getRenderer(complicationId) == ComplicationSlots.RENDERER_ARC;
+
+        EvaluatedText evaluated = new EvaluatedText(
+                arc ? EvaluatedText.KIND_ARC_LABEL : EvaluatedText.KIND_SHORT_TEXT);
+        evaluated.setComplicationData(data);
+        String text = evaluated.get(context, now);
+
+        float percent = -1;
+        if (data != null && data.getType() == ComplicationData.TYPE_RANGED_VALUE) {
+            percent = ArcMath.getPercent(data.getMinValue(), data.getMaxValue(), data.getValue());
+        }
+
+        Icon iconSource = arc && data != null ? getRangeIcon(data) : null;
+        Drawable icon = null;
+        if (iconSource != null) {
+            if (previous != null && previous.icon != null
+                    && isSameIcon(previous.iconSource, iconSource)) {
+                icon = previous.icon;
+            } else {
+                icon = IconCache.load(context, iconSource);
+            }
+        }
+
+        return new PreparedSlot(data, text, now, evaluated.getNextChangeTime(), percent,
+                iconSource, icon);
+    }
+
+    private static Icon getRangeIcon(ComplicationData complicationData) {
+        if (complicationData.getIcon() != null) {
+            return complicationData.getIcon();
+        } else if (complicationData.getSmallImage() != null) {
+            return complicationData.getSmallImage();
+        } else if (complicationData.getLargeImage() != null) {
+            return complicationData.getLargeImage();
+        } else if (complicationData.getBurnInProtectionSmallImage() != null) {
+            return complicationData.getBurnInProtectionSmallImage();
+        } else {
+            return complicationData.getBurnInProtectionIcon();
+        }
+    }
+
+    // Every update arrives with freshly unparcelled icons, so resource icons are compared by
+    // what they point at. Other icon types are only equal to themselves.
+    private static boolean isSameIcon(Icon a, Icon b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            return false;
+        }
+        return a.getType() == Icon.TYPE_RESOURCE
+                && b.getType() == Icon.TYPE_RESOURCE
+                && a.getResId() == b.getResId()
+                && a.getResPackage().equals(b.getResPackage());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.android.wearable.complications;
+
+import android.os.SystemClock;
+import android.support.wearable.complications.ComplicationProviderInfo;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide cache of the provider chosen for each complication slot, so that
+ * {@link ComplicationConfigActivity} can show its previews as soon as it opens and refresh them in
+ * the background. Also owns the one bounded executor all provider info lookups run on.
+ */
+public final class ProviderInfoCache {
+
+    // How long a cached provider is shown without asking the system again.
+    public static final long TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int MAX_THREADS = 2;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private static ProviderInfoCache instance;
+
+    private final ThreadPoolExecutor executor;
+
+    // Indexed by complication id. A slot without a provider is cached as a null info.
+    private final ComplicationProviderInfo[] infos;
+    private final long[] fetchTimes;
+    private final boolean[] cached;
+
+    public static synchronized ProviderInfoCache getInstance() {
+        if (instance == null) {
+            instance = new ProviderInfoCache(ComplicationSlots.SLOT_COUNT);
+        }
+        return instance;
+    }
+
+    private ProviderInfoCache(int slotCount) {
+        infos = new ComplicationProviderInfo[slotCount];
+        fetchTimes = new long[slotCount];
+        cached = new boolean[slotCount];
+
+        // Idle threads time out, so the pool costs nothing while the config screen is closed.
+        executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public synchronized boolean contains(int complicationId) {
+        return cached[complicationId];
+    }
+
+    public synchronized ComplicationProviderInfo get(int complicationId) {
+        return infos[complicationId];
+    }
+
+    public synchronized boolean isFresh(int complicationId) {
+        return cached[complicationId]
+                && SystemClock.elapsedRealtime() - fetchTimes[complicationId] < TTL_MS;
+    }
+
+    public synchronized void put(int complicationId, ComplicationProviderInfo info) {
+        infos[complicationId] = info;
+        fetchTimes[complicationId] = SystemClock.elapsedRealtime();
+        cached[complicationId] = true;
+    }
+}
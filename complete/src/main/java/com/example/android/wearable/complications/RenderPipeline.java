@@ -0,0 +1,106 @@
+package com.example.android.wearable.complications;
+
+import static com.example.android.wearable.complications.Constants.MSG_PREPARED;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.Trace;
+import android.support.wearable.complications.ComplicationData;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prepares complication data for drawing on a background thread. Every update produces a new
+ * array of {@link PreparedSlot}s, indexed by complication id, that shares the unchanged slots
+ * with the previous one. The array is published through an atomic reference: the main thread
+ * takes the latest one at the start of a frame and keeps drawing from it until the next one, so
+ * neither side ever waits for the other. A MSG_PREPARED message tells the target handler that
+ * a slot is ready, with arg1 holding its id and arg2 whether it should be redrawn.
+ *
+ * Only the slots the face draws itself, the center text and the arcs, go through here.
+ */
+final class RenderPipeline {
+
+    private final Context context;
+    private final Handler target;
+    private final HandlerThread thread;
+    private final Handler handler;
+
+    // The latest prepared slots. Only touched by the background thread.
+    private PreparedSlot[] latest = new PreparedSlot[ComplicationSlots.SLOT_COUNT];
+
+    // Prepared slots the main thread has not taken yet.
+    private final AtomicReference<PreparedSlot[]> published = new AtomicReference<>();
+
+    RenderPipeline(Context context, Handler target) {
+        this.context = context;
+        this.target = target;
+        thread = new HandlerThread("RenderPipeline", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    // Whether the face draws the slot itself, and so needs its data prepared.
+    static boolean isPrepared(int complicationId) {
+        return ComplicationSlots.getRenderer(complicationId) != ComplicationSlots.RENDERER_DRAWABLE;
+    }
+
+    void submit(final int complicationId, final ComplicationData data, final boolean redraw) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                prepare(complicationId, data, redraw);
+            }
+        });
+    }
+
+    // Makes slots the main thread prepared itself the base that later updates build on.
+    void seed(final PreparedSlot[] slots) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                latest = slots;
+            }
+        });
+    }
+
+    // Returns slots published since the last call, or null if there are none.
+    PreparedSlot[] take() {
+        return published.getAndSet(null);
+    }
+
+    // Whether slots have been published that the main thread has not taken yet.
+    boolean hasPending() {
+        return published.get() != null;
+    }
+
+    void quit() {
+        thread.quitSafely();
+    }
+
+    private void prepare(int complicationId, ComplicationData data, boolean redraw) {
+        Trace.beginSection("RenderPipeline.prepare");
+        PreparedSlot[] next = latest.clone();
+        next[complicationId] = PreparedSlot.prepare(context, complicationId, data,
+                latest[complicationId], System.currentTimeMillis());
+        latest = next;
+        published.set(next);
+        Trace.endSection();
+
+        target.obtainMessage(MSG_PREPARED, complicationId, redraw ? 1 : 0).sendToTarget();
+    }
+
+    // Prepares all of the given data on the calling thread, for frames that cannot wait. Slots
+    // without data are left null, as they are before their first update.
+    static PreparedSlot[] prepareAll(Context context, ComplicationData[] data, long now) {
+        PreparedSlot[] slots = new PreparedSlot[ComplicationSlots.SLOT_COUNT];
+        for (int i = 0; i < slots.length; i++) {
+            if (isPrepared(i) && data[i] != null) {
+                slots[i] = PreparedSlot.prepare(context, i, data[i], null, now);
+            }
+        }
+        return slots;
+    }
+}
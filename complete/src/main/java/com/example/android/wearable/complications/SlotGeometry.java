@@ -0,0 +1,86 @@
+package com.example.android.wearable.complications;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where the slots of the face sit: the location of every slot id and, for arcs, the angle their
+ * sweep starts at. These are the columns of the {@link ComplicationSlots} table that lay the face
+ * out, kept here free of Android dependencies so {@link FaceLayout} can be computed and
+ * benchmarked on the JVM with the geometry the face ships with.
+ */
+public final class SlotGeometry {
+
+    // Start angle of slots that are not drawn as an arc.
+    public static final int NO_ARC = -1;
+
+    // The active engine and a preview or two; older sizes are computed again if they return.
+    private static final int MAX_LAYOUTS = 4;
+
+    /*
+     * The face, one entry per complication id in the order of the ComplicationSlots rows:
+     * location, and start angle clockwise from 3 o'clock for the slots drawn as an arc. Arcs are
+     * listed in clockwise order.
+     */
+    public static final SlotGeometry FACE = new SlotGeometry(
+            new ComplicationLocation[] {
+                    ComplicationLocation.RIGHT,
+                    ComplicationLocation.TOP_RIGHT,
+                    ComplicationLocation.TOP,
+                    ComplicationLocation.TOP_LEFT,
+                    ComplicationLocation.LEFT,
+                    ComplicationLocation.BOTTOM,
+                    ComplicationLocation.CENTER,
+                    ComplicationLocation.TOP_RIGHT_RANGED,
+                    ComplicationLocation.BOTTOM_RIGHT_RANGED,
+                    ComplicationLocation.BOTTOM_LEFT_RANGED,
+                    ComplicationLocation.TOP_LEFT_RANGED,
+            },
+            new int[] {
+                    NO_ARC, NO_ARC, NO_ARC, NO_ARC, NO_ARC, NO_ARC, NO_ARC,
+                    280, 10, 100, 190,
+            });
+
+    private final ComplicationLocation[] locations;
+    private final int[] arcStartAngles;
+
+    // Layouts most recently used with this geometry, see FaceLayout.get().
+    final Map<Long, FaceLayout> layouts = new LinkedHashMap<Long, FaceLayout>(
+            MAX_LAYOUTS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, FaceLayout> eldest) {
+            return size() > MAX_LAYOUTS;
+        }
+    };
+
+    /**
+     * Both arrays are indexed by slot id. Start angles are clockwise from 3 o'clock, or NO_ARC.
+     */
+    SlotGeometry(ComplicationLocation[] locations, int[] arcStartAngles) {
+        if (locations.length != arcStartAngles.length) {
+            throw new IllegalArgumentException("One start angle is needed per slot");
+        }
+        // Tap lookups keep a bit per slot id.
+        if (locations.length > Integer.SIZE) {
+            throw new IllegalArgumentException("Too many slots: " + locations.length);
+        }
+        this.locations = locations.clone();
+        this.arcStartAngles = arcStartAngles.clone();
+    }
+
+    public int getSlotCount() {
+        return locations.length;
+    }
+
+    public ComplicationLocation getLocation(int slotId) {
+        return locations[slotId];
+    }
+
+    public boolean isArc(int slotId) {
+        return arcStartAngles[slotId] != NO_ARC;
+    }
+
+    public int getArcStartAngle(int slotId) {
+        return arcStartAngles[slotId];
+    }
+}
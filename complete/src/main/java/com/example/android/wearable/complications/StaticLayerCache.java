@@ -0,0 +1,73 @@
+package com.example.android.wearable.complications;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * Offscreen copies of everything that only changes with the surface or the render mode: the
+ * background fill, the dividers and the arc tracks. One bitmap is kept per
+ * (ambient, hollow, low bit) mode and built lazily, so a frame starts with a single drawBitmap.
+ */
+public class StaticLayerCache {
+
+    public static final int MODE_AMBIENT = 1;
+    public static final int MODE_HOLLOW = 1 << 1;
+    public static final int MODE_LOW_BIT = 1 << 2;
+    private static final int MODE_COUNT = 1 << 3;
+
+    public interface Renderer {
+        void drawStaticLayer(Canvas canvas);
+    }
+
+    private final Renderer renderer;
+    private final Bitmap[] layers = new Bitmap[MODE_COUNT];
+    private final Canvas layerCanvas = new Canvas();
+
+    private int width;
+    private int height;
+    private int trackKinds;
+
+    public StaticLayerCache(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    public void setSize(int width, int height) {
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            clear();
+        }
+    }
+
+    // The arc tracks depend on the type of data each arc shows, packed by the caller.
+    public void setTrackKinds(int trackKinds) {
+        if (this.trackKinds != trackKinds) {
+            this.trackKinds = trackKinds;
+            clear();
+        }
+    }
+
+    public void draw(Canvas canvas, int mode) {
+        Bitmap layer = layers[mode];
+        if (layer == null) {
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            layer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            layerCanvas.setBitmap(layer);
+            renderer.drawStaticLayer(layerCanvas);
+            layerCanvas.setBitmap(null);
+            layers[mode] = layer;
+        }
+        canvas.drawBitmap(layer, 0, 0, null);
+    }
+
+    public void clear() {
+        for (int i = 0; i < MODE_COUNT; i++) {
+            if (layers[i] != null) {
+                layers[i].recycle();
+                layers[i] = null;
+            }
+        }
+    }
+}
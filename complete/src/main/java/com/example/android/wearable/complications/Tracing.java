@@ -0,0 +1,80 @@
+package com.example.android.wearable.complications;
+
+import android.os.Build;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Counter tracks for system traces. Sections go straight through android.os.Trace; counters need
+ * the public Trace.isEnabled and Trace.setCounter added in API 29, which are looked up
+ * reflectively because the app compiles against API 28. On older releases counters do nothing.
+ * Whether a trace is running is looked up once per frame by beginFrame(); call sites only read
+ * the cached flag.
+ */
+final class Tracing {
+
+    private static final String TAG = "Tracing";
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static final Method IS_ENABLED;
+    private static final Method SET_COUNTER;
+
+    // Whether a trace wanted the counters when the current frame began. Main thread only.
+    private static boolean enabled;
+
+    static {
+        Method isEnabled = null;
+        Method setCounter = null;
+        if (Build.VERSION.SDK_INT >= 29) {
+            try {
+                isEnabled = android.os.Trace.class.getMethod("isEnabled");
+                setCounter = android.os.Trace.class.getMethod(
+                        "setCounter", String.class, long.class);
+            } catch (NoSuchMethodException | SecurityException e) {
+                Log.w(TAG, "Trace counters unavailable: " + e);
+                isEnabled = null;
+                setCounter = null;
+            }
+        }
+        IS_ENABLED = isEnabled;
+        SET_COUNTER = setCounter;
+    }
+
+    private Tracing() {
+    }
+
+    // Looks up whether a trace is being recorded that wants the counters, for the coming frame.
+    static void beginFrame() {
+        enabled = queryEnabled();
+    }
+
+    // Whether counters were wanted at the start of the current frame.
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    private static boolean queryEnabled() {
+        if (IS_ENABLED == null) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(IS_ENABLED.invoke(null, NO_ARGS));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    // Sets a counter track. Callers check isEnabled() first, since this boxes its arguments.
+    static void setCounter(String name, int value) {
+        if (SET_COUNTER == null) {
+            return;
+        }
+        try {
+            SET_COUNTER.invoke(null, name, (long) value);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Counters are best effort.
+        }
+    }
+}
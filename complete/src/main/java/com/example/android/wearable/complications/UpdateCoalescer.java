@@ -0,0 +1,54 @@
+package com.example.android.wearable.complications;
+
+import java.util.Arrays;
+
+/**
+ * Decides when complication data updates should be drawn. All updates arriving within
+ * {@link #WINDOW_MS} of each other share one invalidate, and each slot can be capped to a
+ * minimum interval between the redraws it causes. Updates are never dropped: any frame drawn in
+ * the meantime shows the latest data of every slot.
+ *
+ * Times are in the {@code SystemClock.uptimeMillis()} base used by Handler. Plain Java so it can
+ * be benchmarked on the JVM.
+ */
+public final class UpdateCoalescer {
+
+    // Roughly one frame.
+    public static final long WINDOW_MS = 16;
+
+    private final long[] lastRedrawTimes;
+    private int pendingSlots;
+    private long pendingTime = Long.MAX_VALUE;
+
+    public UpdateCoalescer(int slotCount) {
+        lastRedrawTimes = new long[slotCount];
+        Arrays.fill(lastRedrawTimes, Long.MIN_VALUE / 2);
+    }
+
+    /**
+     * Records an update for the slot and returns the time at which the pending invalidate should
+     * run, which may be earlier than this slot alone would need.
+     */
+    public long onUpdate(int slot, long now, long minIntervalMs) {
+        long due = Math.max(now + WINDOW_MS, lastRedrawTimes[slot] + minIntervalMs);
+        pendingSlots |= 1 << slot;
+        pendingTime = Math.min(pendingTime, due);
+        return pendingTime;
+    }
+
+    public boolean hasPendingUpdates() {
+        return pendingSlots != 0;
+    }
+
+    // Every frame shows the latest data, so all pending slots count as redrawn.
+    public void onFrameDrawn(long now) {
+        int slots = pendingSlots;
+        while (slots != 0) {
+            int slot = Integer.numberOfTrailingZeros(slots);
+            lastRedrawTimes[slot] = now;
+            slots &= slots - 1;
+        }
+        pendingSlots = 0;
+        pendingTime = Long.MAX_VALUE;
+    }
+}
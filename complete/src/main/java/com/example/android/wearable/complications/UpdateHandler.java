@@ -4,6 +4,7 @@ import static com.example.android.wearable.complications.Constants.*;
 
 import android.os.Handler;
 import android.os.Message;
+import android.os.Trace;
 
 public class UpdateHandler extends Handler {
     private final ComplicationWatchFaceService.Engine engine;
@@ -14,13 +15,24 @@ public class UpdateHandler extends Handler {
 
     @Override
     public void handleMessage(Message message) {
-        engine.invalidate();
-        if (engine.shouldTimerBeRunning()) {
-            long timeMs = System.currentTimeMillis();
-            long delayMs =
-                    INTERACTIVE_UPDATE_RATE_MS
-                            - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-            this.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
+        Trace.beginSection("UpdateHandler.handleMessage");
+        engine.recordWakeUp();
+        switch (message.what) {
+            case MSG_UPDATE_TIME:
+                engine.invalidateIfChanged(PowerStats.CAUSE_TIMER);
+
+                // Plans the next wake up, if anything on screen can still change.
+                engine.updateTimer();
+                break;
+            case MSG_INVALIDATE:
+                // Coalesced complication data updates.
+                engine.invalidateIfChanged(PowerStats.CAUSE_DATA);
+                break;
+            case MSG_PREPARED:
+                // RenderPipeline finished preparing a slot.
+                engine.onSlotPrepared(message.arg1, message.arg2 != 0);
+                break;
         }
+        Trace.endSection();
     }
 }
@@ -0,0 +1,83 @@
+package com.example.android.wearable.complications;
+
+import static org.junit.Assert.assertEquals;
+
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Checks which activity windows getNextActivityChange() finds, and the ones it deliberately
+ * misses to keep the search short.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ComplicationTimesTest {
+
+    private static final long NOW = 1_600_000_000_000L;
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    public void alwaysActive() {
+        assertEquals(Long.MAX_VALUE, ComplicationTimes.getNextActivityChange(create(), NOW));
+    }
+
+    // isActive() includes the end time, so the data turns inactive a millisecond later.
+    @Test
+    public void findsEnd() {
+        long end = NOW + 90 * MINUTE + 123;
+        assertEquals(end + 1, ComplicationTimes.getNextActivityChange(create(-1, end), NOW));
+    }
+
+    @Test
+    public void findsStart() {
+        long start = NOW + 5 * HOUR + 456;
+        assertEquals(start, ComplicationTimes.getNextActivityChange(create(start, -1), NOW));
+    }
+
+    @Test
+    public void findsShortWindowSoon() {
+        long start = NOW + 10_000;
+        ComplicationData data = create(start, start + 20_000);
+        assertEquals(start, ComplicationTimes.getNextActivityChange(data, NOW));
+        assertEquals(start + 20_001, ComplicationTimes.getNextActivityChange(data, start));
+    }
+
+    // Probes are an hour apart this far out, so a minute long window falls between two.
+    @Test
+    public void missesShortWindowLater() {
+        long start = NOW + 10 * HOUR + 10 * MINUTE;
+        ComplicationData data = create(start, start + MINUTE);
+        assertEquals(NOW + DAY, ComplicationTimes.getNextActivityChange(data, NOW));
+    }
+
+    @Test
+    public void continuesAfterHorizon() {
+        long start = NOW + 2 * DAY;
+        assertEquals(NOW + DAY, ComplicationTimes.getNextActivityChange(create(start, -1), NOW));
+    }
+
+    private static ComplicationData create() {
+        return create(-1, -1);
+    }
+
+    // A short text active from start to end, either left open with -1.
+    private static ComplicationData create(long start, long end) {
+        ComplicationData.Builder builder =
+                new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                        .setShortText(ComplicationText.plainText("1"));
+        if (start != -1) {
+            builder.setStartTime(start);
+        }
+        if (end != -1) {
+            builder.setEndTime(end);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.android.wearable.complications;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times full onDraw passes of an engine driven with fake complication data, the part the JMH
+ * module cannot cover because it needs Android. Every build checks that the median frame at the
+ * largest size stays within FRAME_BUDGET_MS. With -Pbenchmark the median and 90th percentile of
+ * every case are also appended as CSV lines to build/results/draw/results.csv, for comparison
+ * between releases run on the same machine.
+ *
+ * "steady" redraws unchanged data, the common case of a timer tick. "updated" delivers new data
+ * for every slot before each frame, so the caches are rebuilt; only the draw itself is timed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class DrawBenchmarkTest {
+
+    private static final int[] SIZES = {390, 454};
+    private static final int WARMUP_FRAMES = 20;
+    private static final int FRAMES = 200;
+
+    // A frame at 60 Hz. Robolectric's software rendering is slower than a watch, so a frame over
+    // it means the drawing got much more expensive, not just a little.
+    private static final long FRAME_BUDGET_MS = 16;
+
+    private final long[] frameNanos = new long[FRAMES];
+    private TestFace face;
+
+    @Before
+    public void setUp() {
+        face = new TestFace();
+    }
+
+    @After
+    public void tearDown() {
+        if (face != null) {
+            face.destroy();
+        }
+    }
+
+    @Test
+    public void interactive() throws IOException {
+        run("interactive", 0);
+    }
+
+    @Test
+    public void ambient() throws IOException {
+        run("ambient", StaticLayerCache.MODE_AMBIENT);
+    }
+
+    @Test
+    public void fitsFrameBudget() {
+        int size = SIZES[SIZES.length - 1];
+        int[] modes = {0, StaticLayerCache.MODE_AMBIENT};
+        for (int mode : modes) {
+            face.setSize(size);
+            face.setData(TestFace.createData());
+            face.setMode(mode);
+
+            timeSteady();
+            assertBudget(size + "x" + size + " mode " + mode + " steady");
+            timeUpdated();
+            assertBudget(size + "x" + size + " mode " + mode + " updated");
+        }
+    }
+
+    private void run(String modeName, int mode) throws IOException {
+        assumeTrue("Run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+        for (int size : SIZES) {
+            face.setSize(size);
+            face.setData(TestFace.createData());
+            face.setMode(mode);
+
+            timeSteady();
+            report(size + "x" + size + "_" + modeName + "_steady");
+            timeUpdated();
+            report(size + "x" + size + "_" + modeName + "_updated");
+        }
+    }
+
+    // Fills frameNanos with warm frames of unchanged data.
+    private void timeSteady() {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            face.draw();
+        }
+        for (int i = 0; i < FRAMES; i++) {
+            long start = System.nanoTime();
+            face.draw();
+            frameNanos[i] = System.nanoTime() - start;
+        }
+    }
+
+    // Fills frameNanos with frames that each follow new data for every slot.
+    private void timeUpdated() {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            face.setData(TestFace.createData(i + 1));
+            face.draw();
+        }
+        for (int i = 0; i < FRAMES; i++) {
+            face.setData(TestFace.createData(WARMUP_FRAMES + i + 1));
+            long start = System.nanoTime();
+            face.draw();
+            frameNanos[i] = System.nanoTime() - start;
+        }
+    }
+
+    private void assertBudget(String name) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        long medianMs = TimeUnit.NANOSECONDS.toMillis(sorted[FRAMES / 2]);
+        assertTrue(name + ": median frame " + medianMs + " ms, budget " + FRAME_BUDGET_MS + " ms",
+                medianMs <= FRAME_BUDGET_MS);
+    }
+
+    private void report(String name) throws IOException {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        String line = String.format(Locale.US, "%s,%d,%.1f,%.1f", name, FRAMES,
+                sorted[FRAMES / 2] / 1000f, sorted[FRAMES * 9 / 10] / 1000f);
+        System.out.println("draw benchmark: " + line);
+
+        String output = System.getProperty("benchmark.output");
+        if (output == null) {
+            return;
+        }
+        File file = new File(output);
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        boolean header = !file.exists();
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            if (header) {
+                out.println("case,frames,median_us,p90_us");
+            }
+            out.println(line);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.android.wearable.complications;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Renders every surface size and mode with fixed data and compares the frame with the golden
+ * image checked in under src/test/resources/golden. Run with -Pgolden.record to write the
+ * goldens instead, after a change that is meant to alter the rendering.
+ *
+ * Frames with burn-in protection move by a few pixels every minute, so they are compared at the
+ * position they would have without the offset, leaving out the band the offset can uncover.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 28)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class GoldenImageTest {
+
+    private static final int[] SIZES = {320, 360, 390, 454};
+
+    private static final int[] MODES = {
+            0,
+            StaticLayerCache.MODE_AMBIENT,
+            StaticLayerCache.MODE_HOLLOW,
+            StaticLayerCache.MODE_AMBIENT | StaticLayerCache.MODE_LOW_BIT,
+            StaticLayerCache.MODE_AMBIENT | TestFace.MODE_BURN_IN
+    };
+    private static final String[] MODE_NAMES = {
+            "interactive", "ambient", "hollow", "lowbit", "burnin"
+    };
+
+    // The first frame builds the caches; the golden is compared with a warm one.
+    private static final int FRAMES = 2;
+
+    // Per channel difference allowed before a pixel counts as changed.
+    private static final int CHANNEL_TOLERANCE = 2;
+    // Fraction of changed pixels that fails a frame.
+    private static final float MAX_DIFF_FRACTION = 0.001f;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (int size : SIZES) {
+            for (int m = 0; m < MODES.length; m++) {
+                parameters.add(new Object[] {size + "x" + size + "_" + MODE_NAMES[m], size,
+                        MODES[m]});
+            }
+        }
+        return parameters;
+    }
+
+    private final String name;
+    private final int size;
+    private final int mode;
+    private TestFace face;
+
+    public GoldenImageTest(String name, int size, int mode) {
+        this.name = name;
+        this.size = size;
+        this.mode = mode;
+    }
+
+    @Before
+    public void setUp() {
+        face = new TestFace();
+        face.setSize(size);
+        face.setData(TestFace.createData());
+        face.setMode(mode);
+    }
+
+    @After
+    public void tearDown() {
+        face.destroy();
+    }
+
+    @Test
+    public void matchesGolden() throws IOException {
+        Bitmap frame = render();
+        File golden = new File(getGoldenDirectory(), name + ".png");
+
+        if (Boolean.getBoolean("golden.record")) {
+            save(frame, golden);
+            return;
+        }
+        assertTrue("No golden for " + name + ", record one with -Pgolden.record",
+                golden.isFile());
+
+        Bitmap expected = BitmapFactory.decodeFile(golden.getPath());
+        assertNotNull("Unreadable golden " + golden, expected);
+        int margin = (mode & TestFace.MODE_BURN_IN) != 0 ? AmbientFrame.BURN_IN_OFFSET_PX : 0;
+        int changed = countChangedPixels(frame, expected, margin);
+        assertTrue(name + ": " + changed + " pixels changed",
+                changed >= 0 && changed <= MAX_DIFF_FRACTION * size * size);
+    }
+
+    // Returns a warm frame, moved back by the burn-in offset it was drawn with.
+    private Bitmap render() {
+        while (true) {
+            long before = System.currentTimeMillis();
+            Bitmap frame = null;
+            for (int i = 0; i < FRAMES; i++) {
+                frame = face.draw();
+            }
+            long after = System.currentTimeMillis();
+
+            if ((mode & TestFace.MODE_BURN_IN) == 0) {
+                return frame;
+            }
+            int offsetX = AmbientFrame.getBurnInOffsetX(before);
+            int offsetY = AmbientFrame.getBurnInOffsetY(before);
+            // Drawn across a change of the offset; draw again.
+            if (offsetX != AmbientFrame.getBurnInOffsetX(after)
+                    || offsetY != AmbientFrame.getBurnInOffsetY(after)) {
+                continue;
+            }
+            Bitmap unshifted = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(unshifted);
+            canvas.drawColor(Color.BLACK);
+            canvas.drawBitmap(frame, -offsetX, -offsetY, null);
+            return unshifted;
+        }
+    }
+
+    private static File getGoldenDirectory() {
+        String directory = System.getProperty("golden.dir");
+        return new File(directory != null ? directory : "src/test/resources/golden");
+    }
+
+    private static void save(Bitmap frame, File file) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            if (!frame.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("Cannot write " + file);
+            }
+        }
+    }
+
+    // Returns the number of pixels at least margin pixels from the edges that differ by more
+    // than the tolerance, or -1 if the sizes do not match.
+    private static int countChangedPixels(Bitmap frame, Bitmap golden, int margin) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        if (golden.getWidth() != width || golden.getHeight() != height) {
+            return -1;
+        }
+
+        int[] frameRow = new int[width];
+        int[] goldenRow = new int[width];
+        int changed = 0;
+        for (int y = margin; y < height - margin; y++) {
+            frame.getPixels(frameRow, 0, width, 0, y, width, 1);
+            golden.getPixels(goldenRow, 0, width, 0, y, width, 1);
+            for (int x = margin; x < width - margin; x++) {
+                int a = frameRow[x];
+                int b = goldenRow[x];
+                if (a != b
+                        && (Math.abs(Color.alpha(a) - Color.alpha(b)) > CHANNEL_TOLERANCE
+                        || Math.abs(Color.red(a) - Color.red(b)) > CHANNEL_TOLERANCE
+                        || Math.abs(Color.green(a) - Color.green(b)) > CHANNEL_TOLERANCE
+                        || Math.abs(Color.blue(a) - Color.blue(b)) > CHANNEL_TOLERANCE)) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.android.wearable.complications;
+
+import static org.mockito.Mockito.mock;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.os.Looper;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+import android.support.wearable.watchface.WatchFaceService;
+import android.view.SurfaceHolder;
+
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * An engine of its own, created and driven through the callbacks the system uses, that renders
+ * into a bitmap instead of a surface. Every test gets a fresh one, so nothing it does reaches a
+ * live engine.
+ */
+final class TestFace {
+
+    // Render mode bits on top of the StaticLayerCache ones.
+    static final int MODE_BURN_IN = 1 << 3;
+
+    private final ComplicationWatchFaceService.Engine engine;
+    private final SurfaceHolder holder = mock(SurfaceHolder.class);
+    private Bitmap frame;
+    private Canvas canvas;
+    private Rect bounds;
+
+    TestFace() {
+        ComplicationWatchFaceService service =
+                Robolectric.setupService(ComplicationWatchFaceService.class);
+        engine = (ComplicationWatchFaceService.Engine) service.onCreateEngine();
+        engine.onCreate(holder);
+    }
+
+    void setSize(int size) {
+        frame = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(frame);
+        bounds = new Rect(0, 0, size, size);
+        engine.onSurfaceChanged(holder, PixelFormat.RGBA_8888, size, size);
+    }
+
+    void setMode(int mode) {
+        Bundle properties = new Bundle();
+        properties.putBoolean(WatchFaceService.PROPERTY_LOW_BIT_AMBIENT,
+                (mode & StaticLayerCache.MODE_LOW_BIT) != 0);
+        properties.putBoolean(WatchFaceService.PROPERTY_BURN_IN_PROTECTION,
+                (mode & MODE_BURN_IN) != 0);
+        engine.onPropertiesChanged(properties);
+        engine.setHollowMode((mode & StaticLayerCache.MODE_HOLLOW) != 0);
+        engine.onAmbientModeChanged((mode & StaticLayerCache.MODE_AMBIENT) != 0);
+    }
+
+    // Delivers the data and waits until the RenderPipeline has prepared it.
+    void setData(ComplicationData[] data) {
+        for (int id = 0; id < data.length; id++) {
+            engine.onComplicationDataUpdate(id, data[id]);
+        }
+        for (Looper looper : ShadowLooper.getAllLoopers()) {
+            if (looper != Looper.getMainLooper()) {
+                shadowOf(looper).idle();
+            }
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    // Draws a frame over a cleared bitmap and returns the bitmap, which the next draw reuses.
+    Bitmap draw() {
+        frame.eraseColor(Color.TRANSPARENT);
+        engine.onDraw(canvas, bounds);
+        return frame;
+    }
+
+    void destroy() {
+        engine.onDestroy();
+        if (frame != null) {
+            frame.recycle();
+        }
+    }
+
+    // Text in the circular slots and the center, and alternating values and labels on the arcs.
+    static ComplicationData[] createData() {
+        return createData(0);
+    }
+
+    // The same slots with values and text that differ for every variant.
+    static ComplicationData[] createData(int variant) {
+        ComplicationData[] data = new ComplicationData[ComplicationSlots.SLOT_COUNT];
+
+        for (int id = 0; id < ComplicationSlots.SLOT_COUNT; id++) {
+            int renderer = ComplicationSlots.getRenderer(id);
+            int arcIndex = ComplicationSlots.getArcIndex(id);
+            if (renderer == ComplicationSlots.RENDERER_ARC && arcIndex % 2 == 0) {
+                data[id] = new ComplicationData.Builder(ComplicationData.TYPE_RANGED_VALUE)
+                        .setMinValue(0)
+                        .setMaxValue(100)
+                        .setValue((20 * (arcIndex + 1) + variant) % 101)
+                        .build();
+            } else {
+                String text = renderer == ComplicationSlots.RENDERER_CENTER_TEXT
+                        ? "10:09" : Integer.toString(10 * id + variant);
+                data[id] = new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                        .setShortText(ComplicationText.plainText(text))
+                        .setShortTitle(ComplicationText.plainText("T" + id))
+                        .build();
+            }
+        }
+        return data;
+    }
+}